@@ -0,0 +1,89 @@
+package com.buskaro.api.benchmark;
+
+import com.buskaro.api.BusKaroApplication;
+import com.buskaro.api.service.BusRouteService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Boots the application on a private in-memory H2 database, without the web server, and seeds
+ * synthetic route catalogs straight through JDBC.
+ */
+final class BenchmarkApp {
+    private static final int SEED_BATCH = 5_000;
+    private static final String[] OPERATORS = {"Delhi Express", "Mumbai Travels", "Royal Express", "South Express",
+            "UP Express", "Punjab Express", "East Coast Express", "Central Express"};
+
+    /** Origin and destination of each seeded route, in insertion order. */
+    record Catalog(List<Long> routeIds, String[] origins, String[] destinations) {
+    }
+
+    private BenchmarkApp() {
+    }
+
+    static ConfigurableApplicationContext start(String database) {
+        return new SpringApplicationBuilder(BusKaroApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                // As arguments, so they win over application.properties (SQL echo, DEBUG logging)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.buskaro=WARN",
+                        "--logging.level.org.springframework.security=WARN",
+                        "--popularity.snapshot-path=target/benchmark/" + database + "-popularity.snapshot",
+                        "--popularity.snapshot-interval-ms=3600000",
+                        "--ledger.dir=target/benchmark/" + database + "-ledger",
+                        "--trips.window-days=2");
+    }
+
+    /**
+     * Inserts {@code routes} routes between {@code max(20, sqrt(routes))} cities and reloads the
+     * in-memory indexes, as the startup path does.
+     */
+    static Catalog seedRoutes(ConfigurableApplicationContext context, int routes, int seatsPerRoute) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        int cities = Math.max(20, (int) Math.sqrt(routes));
+        Random random = new Random(42);
+        String[] origins = new String[routes];
+        String[] destinations = new String[routes];
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH);
+        Set<String> slots = new HashSet<>(routes * 2);
+        for (int i = 0; i < routes; i++) {
+            int from = random.nextInt(cities);
+            int to = (from + 1 + random.nextInt(cities - 1)) % cities;
+            origins[i] = "City" + from;
+            destinations[i] = "City" + to;
+            // (bus_operator, origin, destination, departure_time) is unique, so redraw a taken slot
+            LocalTime departure;
+            do {
+                departure = LocalTime.of(random.nextInt(24), random.nextInt(12) * 5);
+            } while (!slots.add(OPERATORS[i % OPERATORS.length] + ":" + from + ":" + to + ":" + departure));
+            batch.add(new Object[]{origins[i], destinations[i], Time.valueOf(departure),
+                    Time.valueOf(departure.plusHours(1 + random.nextInt(12))), OPERATORS[i % OPERATORS.length],
+                    i % 2 == 0 ? "AC Sleeper" : "AC Seater", seatsPerRoute, seatsPerRoute,
+                    BigDecimal.valueOf(500 + random.nextInt(2000)), "WiFi, Water"});
+            if (batch.size() == SEED_BATCH || i == routes - 1) {
+                jdbc.batchUpdate("insert into bus_routes (origin, destination, departure_time, arrival_time, "
+                        + "bus_operator, bus_type, total_seats, seats_available, price_per_seat, amenities, version) "
+                        + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", batch);
+                batch.clear();
+            }
+        }
+        List<Long> routeIds = jdbc.queryForList(
+                "select id from bus_routes where origin like 'City%' order by id", Long.class);
+        context.getBean(BusRouteService.class).rebuildIndexes();
+        return new Catalog(routeIds, origins, destinations);
+    }
+}
@@ -0,0 +1,83 @@
+package com.buskaro.api.benchmark;
+
+import com.buskaro.api.entity.User;
+import com.buskaro.api.repository.UserRepository;
+import com.buskaro.api.service.BookingService;
+import com.buskaro.api.service.CartService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout of a cart with one seat on each of {@code cartSize} routes: seat claims, one batched
+ * booking insert and the cart delete, in one transaction. The cart is refilled before every
+ * invocation, outside the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CheckoutBenchmarks {
+    private static final int ROUTES = 500;
+    // Enough seats that no route sells out over a full run
+    private static final int SEATS_PER_ROUTE = 20_000;
+
+    @Param({"1", "10", "100"})
+    public int cartSize;
+
+    private ConfigurableApplicationContext context;
+    private CartService cartService;
+    private BookingService bookingService;
+    private List<Long> routeIds;
+    private Long userId;
+    private int nextRoute;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start("checkout" + cartSize);
+        routeIds = BenchmarkApp.seedRoutes(context, ROUTES, SEATS_PER_ROUTE).routeIds();
+        cartService = context.getBean(CartService.class);
+        bookingService = context.getBean(BookingService.class);
+
+        User user = new User();
+        user.setEmail("benchmark@buskaro.test");
+        user.setPassword("unused");
+        user.setName("Benchmark");
+        user.setCreatedAt(LocalDateTime.now());
+        userId = context.getBean(UserRepository.class).save(user).getId();
+    }
+
+    @Setup(Level.Invocation)
+    public void fillCart() {
+        for (int i = 0; i < cartSize; i++) {
+            cartService.addToCart(userId, routeIds.get(nextRoute++ % ROUTES), null, "1");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object checkout() {
+        return bookingService.checkout(userId);
+    }
+}
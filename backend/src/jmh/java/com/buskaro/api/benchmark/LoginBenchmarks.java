@@ -0,0 +1,92 @@
+package com.buskaro.api.benchmark;
+
+import com.buskaro.api.dto.auth.LoginRequest;
+import com.buskaro.api.dto.auth.SignupRequest;
+import com.buskaro.api.exception.ServiceUnavailableException;
+import com.buskaro.api.service.AuthService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login throughput with many callers at once: the user lookup plus a BCrypt check on the
+ * bounded hashing pool ({@code auth.hashing.*}), so throughput tops out at one check per pool
+ * thread however many callers there are. Logins the pool turns away or times out surface as
+ * {@link ServiceUnavailableException} (a 503 over HTTP) and are reported as {@code shed} next to
+ * the {@code accepted} rate; with few CPUs the 32 callers outrun the default 5 s timeout.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class LoginBenchmarks {
+    private static final String PASSWORD = "benchmark-password";
+
+    private ConfigurableApplicationContext context;
+    private AuthService authService;
+    private LoginRequest login;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start("login");
+        authService = context.getBean(AuthService.class);
+
+        SignupRequest signup = new SignupRequest();
+        signup.setName("Benchmark");
+        signup.setEmail("benchmark@buskaro.test");
+        signup.setPassword(PASSWORD);
+        signup.setPhone("0000000000");
+        authService.signup(signup);
+
+        login = new LoginRequest();
+        login.setEmail(signup.getEmail());
+        login.setPassword(PASSWORD);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object login(Outcomes outcomes) {
+        try {
+            Object response = authService.login(login);
+            outcomes.accepted++;
+            return response;
+        } catch (ServiceUnavailableException e) {
+            outcomes.shed++;
+            return e;
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long accepted;
+        public long shed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            accepted = 0;
+            shed = 0;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.buskaro.api.benchmark;
+
+import com.buskaro.api.dto.route.BusRouteResponse;
+import com.buskaro.api.entity.BusRoute;
+import com.buskaro.api.trip.ScheduledTrip;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Trip to DTO mapping plus serialization, i.e. the response side of the route endpoints. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseMappingBenchmarks {
+    @Param({"1", "100", "1000"})
+    public int routes;
+
+    private List<ScheduledTrip> trips;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        // Same defaults as the ObjectMapper Spring Boot configures for MVC
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        LocalDate today = LocalDate.now();
+        trips = new ArrayList<>(routes);
+        for (int i = 0; i < routes; i++) {
+            BusRoute route = new BusRoute();
+            route.setId((long) i + 1);
+            route.setOrigin("City" + i % 50);
+            route.setDestination("City" + (i + 1) % 50);
+            route.setDepartureTime(LocalTime.of(i % 24, 0));
+            route.setArrivalTime(LocalTime.of((i + 8) % 24, 30));
+            route.setBusOperator("Royal Express");
+            route.setBusType("AC Sleeper");
+            route.setTotalSeats(40);
+            route.setPricePerSeat(BigDecimal.valueOf(1500));
+            route.setAmenities("WiFi, Water, Snacks, Blanket");
+            trips.add(new ScheduledTrip(route, today, (long) i + 1, 40 - i % 40));
+        }
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws JsonProcessingException {
+        List<BusRouteResponse> responses = trips.stream()
+                .map(BusRouteResponse::fromTrip)
+                .toList();
+        return objectMapper.writeValueAsBytes(responses);
+    }
+}
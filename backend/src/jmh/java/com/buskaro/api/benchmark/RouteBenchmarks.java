@@ -0,0 +1,85 @@
+package com.buskaro.api.benchmark;
+
+import com.buskaro.api.index.RoutePopularity;
+import com.buskaro.api.service.BusRouteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog reads from 10 to a million routes. Seeding the million-route catalog takes a few GB
+ * of heap and a minute or two; pass {@code -p catalogSize=10,1000} in the JMH arguments for a
+ * quick run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class RouteBenchmarks {
+    private static final int QUERIES = 1024;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private BusRouteService busRouteService;
+    private String[] fromCities;
+    private String[] toCities;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start("routes" + catalogSize);
+        BenchmarkApp.Catalog catalog = BenchmarkApp.seedRoutes(context, catalogSize, 40);
+        busRouteService = context.getBean(BusRouteService.class);
+
+        // Query pairs that have routes, so every search does real work
+        Random random = new Random(7);
+        fromCities = new String[QUERIES];
+        toCities = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            int route = random.nextInt(catalogSize);
+            fromCities[i] = catalog.origins()[route];
+            toCities[i] = catalog.destinations()[route];
+            busRouteService.searchRoutes(fromCities[i], toCities[i], null, null, null, null, null, 20);
+        }
+        context.getBean(RoutePopularity.class).publish();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object searchRoutes() {
+        int i = next++ & (QUERIES - 1);
+        return busRouteService.searchRoutes(fromCities[i], toCities[i], null, null, null, null, null, 20);
+    }
+
+    @Benchmark
+    public Object getAllCities() {
+        return busRouteService.getAllCities();
+    }
+
+    @Benchmark
+    public Object getPopularRoutes() {
+        return busRouteService.getPopularRoutes();
+    }
+}
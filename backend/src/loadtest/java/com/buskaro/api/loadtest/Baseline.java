@@ -0,0 +1,58 @@
+package com.buskaro.api.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/** Compares a run with a saved baseline, step by step and thread mode by thread mode. */
+final class Baseline {
+    // Below this, p99 differences are scheduling noise rather than regressions
+    private static final double MIN_P99_DELTA_MS = 2.0;
+    private static final double MAX_ERROR_RATE_INCREASE = 0.01;
+    // A p99 from fewer samples is mostly the single slowest request
+    private static final long MIN_SAMPLES = 100;
+
+    private Baseline() {
+    }
+
+    static List<String> compare(JsonNode baseline, JsonNode current, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> modes = current.path("runs").fields();
+        while (modes.hasNext()) {
+            Map.Entry<String, JsonNode> mode = modes.next();
+            JsonNode baselineSteps = baseline.path("runs").path(mode.getKey());
+            if (baselineSteps.isMissingNode()) {
+                continue;
+            }
+            Iterator<Map.Entry<String, JsonNode>> steps = mode.getValue().fields();
+            while (steps.hasNext()) {
+                Map.Entry<String, JsonNode> step = steps.next();
+                JsonNode before = baselineSteps.path(step.getKey());
+                JsonNode after = step.getValue();
+                if (before.path("count").asLong() < MIN_SAMPLES || after.path("count").asLong() < MIN_SAMPLES) {
+                    continue;
+                }
+                String name = mode.getKey() + " " + step.getKey();
+                double p99Before = before.path("p99").asDouble();
+                double p99After = after.path("p99").asDouble();
+                if (p99After > p99Before * (1 + tolerance) && p99After - p99Before > MIN_P99_DELTA_MS) {
+                    regressions.add(String.format("%s p99 %.2f ms -> %.2f ms", name, p99Before, p99After));
+                }
+                double throughputBefore = before.path("throughput").asDouble();
+                double throughputAfter = after.path("throughput").asDouble();
+                if (throughputAfter < throughputBefore * (1 - tolerance)) {
+                    regressions.add(String.format("%s throughput %.1f/s -> %.1f/s", name, throughputBefore, throughputAfter));
+                }
+                double errorsBefore = before.path("errorRate").asDouble();
+                double errorsAfter = after.path("errorRate").asDouble();
+                if (errorsAfter > errorsBefore + MAX_ERROR_RATE_INCREASE) {
+                    regressions.add(String.format("%s error rate %.2f%% -> %.2f%%", name, errorsBefore * 100, errorsAfter * 100));
+                }
+            }
+        }
+        return regressions;
+    }
+}
@@ -0,0 +1,206 @@
+package com.buskaro.api.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One booking-funnel session per arrival: sign up (a configured share of sessions) or log in
+ * when the account has no token, search, add a result to the cart, check out and list bookings.
+ * Each account runs at most one session at a time, so carts never interleave; when every
+ * account is busy a new one signs up.
+ *
+ * <p>The first step's latency is measured from the session's scheduled start rather than from
+ * when its request was sent, so a stalled server shows up in the percentiles instead of
+ * silently lowering the offered load.
+ */
+final class Funnel {
+    enum Step { SIGNUP, LOGIN, SEARCH, CART_ADD, CHECKOUT, BOOKINGS }
+
+    static final String PASSWORD = "loadtest-password";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int TRAVEL_DAYS = 7;
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String[]> searchPairs;
+    private final double signupRatio;
+    private final ConcurrentLinkedQueue<Account> idleAccounts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger signups = new AtomicInteger();
+    private final Map<Step, StepStats> stats = new EnumMap<>(Step.class);
+
+    private static final class Account {
+        final String email;
+        volatile String token;
+
+        Account(String email) {
+            this.email = email;
+        }
+    }
+
+    Funnel(HttpClient client, String baseUrl, List<String> seededEmails, List<String[]> searchPairs,
+           double signupRatio) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.searchPairs = searchPairs;
+        this.signupRatio = signupRatio;
+        seededEmails.forEach(email -> idleAccounts.add(new Account(email)));
+        for (Step step : Step.values()) {
+            stats.put(step, new StepStats());
+        }
+    }
+
+    Map<Step, StepStats> stats() {
+        return stats;
+    }
+
+    /** Runs one session; {@code measured} is false during warmup. */
+    CompletableFuture<Void> run(long scheduledNanos, boolean measured) {
+        Account idle = ThreadLocalRandom.current().nextDouble() < signupRatio ? null : idleAccounts.poll();
+        CompletableFuture<Account> ready;
+        if (idle == null) {
+            ready = signup(scheduledNanos, measured);
+        } else if (idle.token == null) {
+            ready = login(idle, scheduledNanos, measured);
+        } else {
+            ready = CompletableFuture.completedFuture(idle);
+        }
+        long searchStart = idle != null && idle.token != null ? scheduledNanos : -1;
+        return ready.thenCompose(account -> {
+            if (account == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (account.token == null) {
+                idleAccounts.add(account);
+                return CompletableFuture.completedFuture(null);
+            }
+            return book(account, searchStart, measured)
+                    .whenComplete((ignored, error) -> idleAccounts.add(account));
+        });
+    }
+
+    private CompletableFuture<Void> book(Account account, long searchStart, boolean measured) {
+        String[] pair = searchPairs.get(ThreadLocalRandom.current().nextInt(searchPairs.size()));
+        LocalDate travelDate = LocalDate.now().plusDays(ThreadLocalRandom.current().nextInt(TRAVEL_DAYS));
+        HttpRequest search = get("/routes/search?from=" + encode(pair[0]) + "&to=" + encode(pair[1])
+                + "&date=" + travelDate + "&limit=20", null);
+        return send(Step.SEARCH, search, searchStart, measured).thenCompose(found -> {
+            Long routeId = pickRoute(found);
+            if (routeId == null) {
+                return bookings(account, measured);
+            }
+            HttpRequest addToCart = post("/cart/" + routeId + "?seats=1&date=" + travelDate, null, account.token);
+            return send(Step.CART_ADD, addToCart, -1, measured).thenCompose(added -> {
+                if (!ok(added)) {
+                    return bookings(account, measured);
+                }
+                return send(Step.CHECKOUT, post("/checkout", null, account.token), -1, measured)
+                        .thenCompose(checkedOut -> bookings(account, measured));
+            });
+        });
+    }
+
+    private CompletableFuture<Void> bookings(Account account, boolean measured) {
+        return send(Step.BOOKINGS, get("/bookings?size=20", account.token), -1, measured)
+                .thenAccept(response -> { });
+    }
+
+    private CompletableFuture<Account> signup(long scheduledNanos, boolean measured) {
+        Account account = new Account("signup-" + signups.incrementAndGet() + "@loadtest.buskaro");
+        String body = "{\"name\":\"Load User\",\"email\":\"" + account.email + "\",\"password\":\"" + PASSWORD
+                + "\",\"phone\":\"9999999999\"}";
+        return send(Step.SIGNUP, post("/auth/signup", body, null), scheduledNanos, measured)
+                .thenApply(response -> withToken(account, response));
+    }
+
+    private CompletableFuture<Account> login(Account account, long scheduledNanos, boolean measured) {
+        String body = "{\"email\":\"" + account.email + "\",\"password\":\"" + PASSWORD + "\"}";
+        return send(Step.LOGIN, post("/auth/login", body, null), scheduledNanos, measured)
+                .thenApply(response -> withToken(account, response));
+    }
+
+    private Account withToken(Account account, HttpResponse<String> response) {
+        if (ok(response)) {
+            account.token = read(response).path("token").asText(null);
+            return account;
+        }
+        // A failed signup leaves no account behind; a failed login retries on a later session
+        return account.email.startsWith("signup-") ? null : account;
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(Step step, HttpRequest request, long startNanos,
+                                                         boolean measured) {
+        long start = startNanos >= 0 ? startNanos : System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    if (measured) {
+                        stats.get(step).record(System.nanoTime() - start, error == null ? response.statusCode() : 0);
+                    }
+                    return error == null ? response : null;
+                });
+    }
+
+    private Long pickRoute(HttpResponse<String> response) {
+        if (!ok(response)) {
+            return null;
+        }
+        JsonNode routes = read(response);
+        if (!routes.isArray() || routes.isEmpty()) {
+            return null;
+        }
+        return routes.get(ThreadLocalRandom.current().nextInt(routes.size())).path("id").asLong();
+    }
+
+    private JsonNode read(HttpResponse<String> response) {
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (Exception e) {
+            return objectMapper.missingNode();
+        }
+    }
+
+    private HttpRequest get(String path, String token) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT).GET();
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return request.build();
+    }
+
+    private HttpRequest post(String path, String json, String token) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .POST(json == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(json));
+        if (json != null) {
+            request.header("Content-Type", "application/json");
+        }
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return request.build();
+    }
+
+    private static boolean ok(HttpResponse<String> response) {
+        return response != null && response.statusCode() / 100 == 2;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,249 @@
+package com.buskaro.api.loadtest;
+
+import com.buskaro.api.BusKaroApplication;
+import com.buskaro.api.service.BusRouteService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end load test for the booking funnel. Boots the application on a random port with an
+ * embedded H2 database, seeds users and routes, then starts funnel sessions at a fixed arrival
+ * rate (open loop) whatever the server's response times. Per-step throughput, latency
+ * percentiles and error rates are printed and written to a JSON result file, and compared with
+ * a saved baseline; a regression beyond the tolerance exits non-zero so the build fails.
+ *
+ * <p>Run with {@code mvn -Ploadtest verify -Dloadtest.args="--rate=50 --duration=60s"}.
+ */
+public final class LoadTest {
+    private static final int SEED_BATCH = 5_000;
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(60);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        List<String> modes = options.threads().equals("compare") ? List.of("platform", "virtual") : List.of(options.threads());
+        if (modes.contains("virtual") && Runtime.version().feature() < 21) {
+            System.err.println("Virtual threads need a Java 21 runtime; this is Java " + Runtime.version());
+            System.exit(2);
+        }
+
+        Map<String, Object> runs = new LinkedHashMap<>();
+        for (String mode : modes) {
+            runs.put(mode, run(options, mode));
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("rate", options.sessionsPerSecond());
+        settings.put("durationSeconds", options.duration().toSeconds());
+        settings.put("users", options.users());
+        settings.put("routes", options.routes());
+        settings.put("signupRatio", options.signupRatio());
+        result.put("options", settings);
+        result.put("runs", runs);
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        write(objectMapper, options.resultFile(), result);
+        runs.forEach((mode, steps) -> printReport(mode, steps));
+
+        if (options.saveBaseline()) {
+            write(objectMapper, options.baselineFile(), result);
+            System.out.println("Saved baseline to " + options.baselineFile());
+        } else if (Files.exists(options.baselineFile())) {
+            JsonNode baseline = objectMapper.readTree(options.baselineFile().toFile());
+            // Round-trip through JSON so numbers have the same node types as the parsed baseline
+            JsonNode current = objectMapper.readTree(objectMapper.writeValueAsBytes(result));
+            // Numbers from a different offered load or catalog size aren't comparable
+            if (!baseline.path("options").equals(current.path("options"))) {
+                System.out.println("Baseline " + options.baselineFile() + " was recorded with different options "
+                        + baseline.path("options") + "; not comparing");
+                System.exit(0);
+            }
+            List<String> regressions = Baseline.compare(baseline, current, options.tolerance());
+            if (!regressions.isEmpty()) {
+                System.out.println("Regressions against " + options.baselineFile() + ":");
+                regressions.forEach(regression -> System.out.println("  " + regression));
+                System.exit(1);
+            }
+            System.out.println("No regressions against " + options.baselineFile());
+        }
+        System.exit(0);
+    }
+
+    private static Map<String, Object> run(LoadTestOptions options, String mode) throws InterruptedException {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest-" + mode + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.buskaro=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--popularity.snapshot-path=target/loadtest/" + mode + "-popularity.snapshot",
+                "--ledger.dir=target/loadtest/" + mode + "-ledger",
+                // Every simulated user shares one address; keep the adaptive limits, drop per-client rates
+                "--admission.rate-limit.enabled=false",
+                "--trips.window-days=7"));
+        if (mode.equals("virtual")) {
+            arguments.add("--spring.profiles.active=vthreads");
+        }
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BusKaroApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run(arguments.toArray(String[]::new));
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(4);
+        ScheduledExecutorService arrivals = Executors.newSingleThreadScheduledExecutor();
+        try {
+            List<String> emails = seedUsers(context, options.users());
+            List<String[]> searchPairs = seedRoutes(context, options.routes());
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientExecutor)
+                    .build();
+            Funnel funnel = new Funnel(client, "http://localhost:" + port + "/api", emails, searchPairs,
+                    options.signupRatio());
+
+            System.out.printf("[%s] %.1f sessions/s for %ds after %ds warmup%n", mode, options.sessionsPerSecond(),
+                    options.duration().toSeconds(), options.warmup().toSeconds());
+            long periodNanos = (long) (1_000_000_000L / options.sessionsPerSecond());
+            long startNanos = System.nanoTime();
+            long measureFromNanos = startNanos + options.warmup().toNanos();
+            long endNanos = measureFromNanos + options.duration().toNanos();
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger sessions = new AtomicInteger();
+            arrivals.scheduleAtFixedRate(() -> {
+                // The session's intended start, so latency includes any time spent waiting to send
+                long scheduled = startNanos + sessions.getAndIncrement() * periodNanos;
+                if (scheduled >= endNanos) {
+                    return;
+                }
+                inFlight.incrementAndGet();
+                funnel.run(scheduled, scheduled >= measureFromNanos)
+                        .whenComplete((ignored, error) -> inFlight.decrementAndGet());
+            }, 0, periodNanos, TimeUnit.NANOSECONDS);
+
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, endNanos - System.nanoTime()));
+            arrivals.shutdownNow();
+            long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+            while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            if (inFlight.get() > 0) {
+                System.out.printf("[%s] %d sessions still running after %ds; not counted%n",
+                        mode, inFlight.get(), DRAIN_TIMEOUT.toSeconds());
+            }
+
+            double seconds = options.duration().toNanos() / 1e9;
+            Map<String, Object> steps = new LinkedHashMap<>();
+            funnel.stats().forEach((step, stats) -> steps.put(step.name(), stats.summary(seconds)));
+            return steps;
+        } finally {
+            arrivals.shutdownNow();
+            clientExecutor.shutdownNow();
+            context.close();
+        }
+    }
+
+    private static List<String> seedUsers(ConfigurableApplicationContext context, int users) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        // One hash for everyone; hashing per user would dominate the seeding time
+        String hash = new BCryptPasswordEncoder().encode(Funnel.PASSWORD);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<String> emails = new ArrayList<>(users);
+        List<Object[]> batch = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            String email = "user-" + i + "@loadtest.buskaro";
+            emails.add(email);
+            batch.add(new Object[]{email, hash, "Load User " + i, "9999999999", now});
+        }
+        jdbc.batchUpdate("insert into users (email, password, name, phone, created_at) values (?, ?, ?, ?, ?)", batch);
+        return emails;
+    }
+
+    /** Seeds routes between {@code max(20, sqrt(routes))} cities and returns the pairs searched for. */
+    private static List<String[]> seedRoutes(ConfigurableApplicationContext context, int routes) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        int cities = Math.max(20, (int) Math.sqrt(routes));
+        Random random = new Random(42);
+        List<String[]> pairs = new ArrayList<>(routes);
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH);
+        Set<String> slots = new HashSet<>(routes * 2);
+        for (int i = 0; i < routes; i++) {
+            int from = random.nextInt(cities);
+            int to = (from + 1 + random.nextInt(cities - 1)) % cities;
+            pairs.add(new String[]{"City" + from, "City" + to});
+            // (bus_operator, origin, destination, departure_time) is unique, so redraw a taken slot
+            LocalTime departure;
+            do {
+                departure = LocalTime.of(random.nextInt(24), random.nextInt(12) * 5);
+            } while (!slots.add("Load Express" + ":" + from + ":" + to + ":" + departure));
+            batch.add(new Object[]{"City" + from, "City" + to, Time.valueOf(departure),
+                    Time.valueOf(departure.plusHours(1 + random.nextInt(12))), "Load Express", "AC Seater",
+                    10_000, 10_000, BigDecimal.valueOf(500 + random.nextInt(2000)), "WiFi"});
+            if (batch.size() == SEED_BATCH || i == routes - 1) {
+                jdbc.batchUpdate("insert into bus_routes (origin, destination, departure_time, arrival_time, "
+                        + "bus_operator, bus_type, total_seats, seats_available, price_per_seat, amenities, version) "
+                        + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", batch);
+                batch.clear();
+            }
+        }
+        context.getBean(BusRouteService.class).rebuildIndexes();
+        return pairs;
+    }
+
+    private static void printReport(String mode, Object steps) {
+        System.out.printf("%n[%s]%n%-10s %8s %9s %7s %9s %9s %9s %9s%n", mode,
+                "step", "count", "req/s", "err%", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        ((Map<?, ?>) steps).forEach((step, value) -> {
+            Map<?, ?> summary = (Map<?, ?>) value;
+            System.out.printf("%-10s %8d %9.1f %7.2f %9.2f %9.2f %9.2f %9.2f%n", step,
+                    (Long) summary.get("count"), (Double) summary.get("throughput"),
+                    (Double) summary.get("errorRate") * 100, (Double) summary.get("p50"),
+                    (Double) summary.get("p90"), (Double) summary.get("p99"), (Double) summary.get("max"));
+        });
+    }
+
+    private static void write(ObjectMapper objectMapper, Path file, Object value) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        objectMapper.writeValue(file.toFile(), value);
+    }
+}
@@ -0,0 +1,78 @@
+package com.buskaro.api.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/** Command-line options, all in {@code --name=value} form. */
+record LoadTestOptions(double sessionsPerSecond,
+                       Duration duration,
+                       Duration warmup,
+                       int users,
+                       int routes,
+                       double signupRatio,
+                       String threads,
+                       Path resultFile,
+                       Path baselineFile,
+                       boolean saveBaseline,
+                       double tolerance) {
+
+    static final String USAGE = """
+            Options (all optional):
+              --rate=20                 new funnel sessions per second (open loop)
+              --duration=60s            measured run length
+              --warmup=10s              unmeasured lead-in at the same rate
+              --users=500               seeded users (more sign up on demand)
+              --routes=10000            seeded routes
+              --signup-ratio=0.05       share of sessions that are new users signing up
+              --threads=platform        platform | virtual | compare (virtual needs Java 21)
+              --result=target/loadtest-result.json
+              --baseline=loadtest-baseline.json
+              --save-baseline           write this run's results as the new baseline
+              --tolerance=0.25          allowed relative p99 / throughput regression
+            """;
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg + "\n" + USAGE);
+            }
+            int equals = arg.indexOf('=');
+            values.put(equals < 0 ? arg.substring(2) : arg.substring(2, equals), equals < 0 ? "true" : arg.substring(equals + 1));
+        }
+        if (values.containsKey("help")) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        String threads = values.getOrDefault("threads", "platform");
+        if (!threads.equals("platform") && !threads.equals("virtual") && !threads.equals("compare")) {
+            throw new IllegalArgumentException("--threads must be platform, virtual or compare");
+        }
+        return new LoadTestOptions(
+                Double.parseDouble(values.getOrDefault("rate", "20")),
+                duration(values.getOrDefault("duration", "60s")),
+                duration(values.getOrDefault("warmup", "10s")),
+                Integer.parseInt(values.getOrDefault("users", "500")),
+                Integer.parseInt(values.getOrDefault("routes", "10000")),
+                Double.parseDouble(values.getOrDefault("signup-ratio", "0.05")),
+                threads,
+                Path.of(values.getOrDefault("result", "target/loadtest-result.json")),
+                Path.of(values.getOrDefault("baseline", "loadtest-baseline.json")),
+                Boolean.parseBoolean(values.getOrDefault("save-baseline", "false")),
+                Double.parseDouble(values.getOrDefault("tolerance", "0.25")));
+    }
+
+    private static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.parse(value);
+    }
+}
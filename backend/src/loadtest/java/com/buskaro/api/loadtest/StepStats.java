@@ -0,0 +1,55 @@
+package com.buskaro.api.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Latency histogram and outcome counts for one funnel step. */
+final class StepStats {
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private final Histogram latency = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+    private final LongAdder errors = new LongAdder();
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    void record(long latencyNanos, int status) {
+        latency.recordValue(Math.min(latencyNanos, MAX_LATENCY_NANOS));
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        if (status < 200 || status >= 300) {
+            errors.increment();
+        }
+    }
+
+    /** Summary for the report and baseline; latencies in milliseconds. */
+    Map<String, Object> summary(double seconds) {
+        long count = latency.getTotalCount();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", count);
+        summary.put("throughput", round(count / seconds));
+        summary.put("errorRate", count == 0 ? 0.0 : round((double) errors.sum() / count));
+        summary.put("p50", millis(latency.getValueAtPercentile(50)));
+        summary.put("p90", millis(latency.getValueAtPercentile(90)));
+        summary.put("p99", millis(latency.getValueAtPercentile(99)));
+        summary.put("p999", millis(latency.getValueAtPercentile(99.9)));
+        summary.put("max", millis(latency.getMaxValue()));
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        statuses.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> byStatus.put(String.valueOf(entry.getKey()), entry.getValue().sum()));
+        summary.put("statuses", byStatus);
+        return summary;
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -2,8 +2,10 @@ package com.buskaro.api;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class BusKaroApplication {
     public static void main(String[] args) {
         SpringApplication.run(BusKaroApplication.class, args);
@@ -0,0 +1,80 @@
+package com.buskaro.api.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Concurrency limit that follows observed latency, AIMD style: every request that finishes
+ * within its target while the limit is being used raises the limit by {@code 1/limit}, about
+ * one per round of requests, and a request that is too slow or fails with a 5xx cuts it by
+ * {@link #BACKOFF}. Cuts are at most one per {@link #DECREASE_INTERVAL_NANOS}, so a burst of slow
+ * responses from one episode doesn't collapse the limit. All state is CAS-updated.
+ */
+final class AdaptiveLimiter {
+    private static final double BACKOFF = 0.9;
+    private static final long DECREASE_INTERVAL_NANOS = 100_000_000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // The limit as double bits, so increases smaller than one accumulate
+    private final AtomicLong limitBits;
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(System.nanoTime() - DECREASE_INTERVAL_NANOS);
+
+    AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(Math.max(minLimit, Math.min(maxLimit, initialLimit))));
+    }
+
+    /** Takes a slot if fewer than {@code share} of the limit are in use. */
+    boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit() * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Returns a slot without saying anything about latency, e.g. for a request that went async. */
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    void release(long latencyNanos, long targetNanos, boolean failed, long nowNanos) {
+        int wasInFlight = inFlight.getAndDecrement();
+        if (failed || latencyNanos > targetNanos) {
+            long last = lastDecreaseNanos.get();
+            if (nowNanos - last >= DECREASE_INTERVAL_NANOS && lastDecreaseNanos.compareAndSet(last, nowNanos)) {
+                update(limit -> Math.max(minLimit, limit * BACKOFF));
+            }
+        } else if (wasInFlight * 2 >= limit()) {
+            // Only grow while at least half the limit is in use, or it would drift up unchecked
+            update(limit -> Math.min(maxLimit, limit + 1 / limit));
+        }
+    }
+
+    double limit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private void update(DoubleUnaryOperator change) {
+        while (true) {
+            long current = limitBits.get();
+            long next = Double.doubleToLongBits(change.applyAsDouble(Double.longBitsToDouble(current)));
+            if (current == next || limitBits.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.buskaro.api.admission;
+
+import com.buskaro.api.exception.GlobalExceptionHandler;
+import com.buskaro.api.security.AuthenticatedUser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control, run in the security chain right after the caller is authenticated. A
+ * request first spends a token from its client's bucket for its {@link EndpointGroup}, keyed by
+ * user id or, for anonymous calls, IP address; over the rate it gets a 429. It then needs a
+ * slot under its group's adaptive concurrency limit and under the node's, where lower
+ * priorities may only use part of the limit: as latency grows and the node limit shrinks,
+ * catalog reads and search are shed with a 503 well before checkout and bookings are.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    private static final long SHED_RETRY_AFTER_SECONDS = 1;
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean rateLimitEnabled;
+    private final boolean concurrencyLimitEnabled;
+    private final TokenBuckets tokenBuckets;
+    private final AdaptiveLimiter nodeLimiter;
+    private final Map<EndpointGroup, AdaptiveLimiter> groupLimiters = new EnumMap<>(EndpointGroup.class);
+
+    public AdmissionControlFilter(ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${admission.rate-limit.enabled:true}") boolean rateLimitEnabled,
+                                  @Value("${admission.rate-limit.multiplier:1.0}") double rateMultiplier,
+                                  @Value("${admission.rate-limit.max-clients:100000}") long maxClients,
+                                  @Value("${admission.rate-limit.idle-expiry:PT10M}") Duration idleExpiry,
+                                  @Value("${admission.concurrency-limit.enabled:true}") boolean concurrencyLimitEnabled,
+                                  @Value("${admission.concurrency-limit.min:4}") int minLimit,
+                                  @Value("${admission.concurrency-limit.initial:50}") int initialLimit,
+                                  @Value("${admission.concurrency-limit.max:200}") int maxLimit) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.rateLimitEnabled = rateLimitEnabled;
+        this.concurrencyLimitEnabled = concurrencyLimitEnabled;
+        this.tokenBuckets = new TokenBuckets(rateMultiplier, maxClients, idleExpiry);
+        // The node starts wide open; it only narrows once latency says it must
+        this.nodeLimiter = new AdaptiveLimiter(maxLimit, minLimit, maxLimit);
+        Gauge.builder("admission.limit", nodeLimiter, AdaptiveLimiter::limit)
+                .description("Adaptive concurrency limit")
+                .tag("group", "node")
+                .register(meterRegistry);
+        for (EndpointGroup group : EndpointGroup.values()) {
+            if (!group.limitsConcurrency()) {
+                continue;
+            }
+            AdaptiveLimiter limiter = new AdaptiveLimiter(initialLimit, minLimit, maxLimit);
+            groupLimiters.put(group, limiter);
+            Gauge.builder("admission.limit", limiter, AdaptiveLimiter::limit)
+                    .description("Adaptive concurrency limit")
+                    .tag("group", group.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        EndpointGroup group = EndpointGroup.of(request);
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        if (rateLimitEnabled) {
+            long waitNanos = tokenBuckets.tryAcquire(client(request), group, start);
+            if (waitNanos > 0) {
+                reject(response, group, HttpStatus.TOO_MANY_REQUESTS, "rate",
+                        "Too many requests, please slow down", TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+                return;
+            }
+        }
+        AdaptiveLimiter groupLimiter = concurrencyLimitEnabled ? groupLimiters.get(group) : null;
+        if (groupLimiter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!groupLimiter.tryAcquire(1.0)) {
+            reject(response, group, HttpStatus.SERVICE_UNAVAILABLE, "concurrency",
+                    "Server is busy, please retry", SHED_RETRY_AFTER_SECONDS);
+            return;
+        }
+        if (!nodeLimiter.tryAcquire(group.priority.share)) {
+            groupLimiter.release();
+            reject(response, group, HttpStatus.SERVICE_UNAVAILABLE, "priority",
+                    "Server is busy, please retry", SHED_RETRY_AFTER_SECONDS);
+            return;
+        }
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Streaming responses outlive this call, so their timing says nothing about load
+                groupLimiter.release();
+                nodeLimiter.release();
+            } else {
+                long now = System.nanoTime();
+                long targetNanos = TimeUnit.MILLISECONDS.toNanos(group.targetLatencyMillis);
+                groupLimiter.release(now - start, targetNanos, failed, now);
+                nodeLimiter.release(now - start, targetNanos, failed, now);
+            }
+        }
+    }
+
+    private static String client(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return "user:" + user.getId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, EndpointGroup group, HttpStatus status, String reason,
+                        String message, long retryAfterSeconds) throws IOException {
+        meterRegistry.counter("admission.rejected", "group", group.name().toLowerCase(), "reason", reason).increment();
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new GlobalExceptionHandler.ErrorResponse(false, message, null, LocalDateTime.now()));
+    }
+}
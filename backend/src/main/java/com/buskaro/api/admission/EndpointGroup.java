@@ -0,0 +1,88 @@
+package com.buskaro.api.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Endpoints that share a rate limit, a concurrency limit and a priority. Rates are per client
+ * (user, or IP address for anonymous calls) in requests per second, with the given burst;
+ * {@code targetLatencyMillis} is the latency above which the group's concurrency limit shrinks.
+ */
+enum EndpointGroup {
+    CHECKOUT(Priority.CRITICAL, 1, 3, 1000),
+    BOOKING(Priority.CRITICAL, 2, 5, 500),
+    CART(Priority.HIGH, 5, 10, 250),
+    AUTH(Priority.HIGH, 2, 10, 1000),
+    ACCOUNT(Priority.NORMAL, 5, 10, 250),
+    ROUTE_IMPORT(Priority.NORMAL, 0.2, 2, 30_000),
+    SEARCH(Priority.LOW, 10, 20, 250),
+    CATALOG(Priority.LOW, 20, 40, 250),
+    // Long-lived streams: only the rate of new subscriptions is limited
+    AVAILABILITY(Priority.LOW, 1, 5, 0);
+
+    /**
+     * How much of the node's concurrency limit a request may use; lower priorities are
+     * turned away while there is still room for the higher ones.
+     */
+    enum Priority {
+        CRITICAL(1.0),
+        HIGH(0.9),
+        NORMAL(0.75),
+        LOW(0.5);
+
+        final double share;
+
+        Priority(double share) {
+            this.share = share;
+        }
+    }
+
+    final Priority priority;
+    final double ratePerSecond;
+    final int burst;
+    final long targetLatencyMillis;
+
+    EndpointGroup(Priority priority, double ratePerSecond, int burst, long targetLatencyMillis) {
+        this.priority = priority;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.targetLatencyMillis = targetLatencyMillis;
+    }
+
+    boolean limitsConcurrency() {
+        return targetLatencyMillis > 0;
+    }
+
+    /** The group of a request, or null for requests that aren't limited (actuator, preflight). */
+    static EndpointGroup of(HttpServletRequest request) {
+        String path = request.getServletPath();
+        String method = request.getMethod();
+        if ("OPTIONS".equals(method)) {
+            return null;
+        }
+        if (path.startsWith("/checkout")) {
+            return CHECKOUT;
+        }
+        if (path.startsWith("/bookings")) {
+            return "GET".equals(method) ? ACCOUNT : BOOKING;
+        }
+        if (path.startsWith("/cart")) {
+            return CART;
+        }
+        if (path.startsWith("/auth")) {
+            return AUTH;
+        }
+        if (path.startsWith("/routes/import") && "POST".equals(method)) {
+            return ROUTE_IMPORT;
+        }
+        if (path.startsWith("/routes/search") || path.startsWith("/routes/connections")) {
+            return SEARCH;
+        }
+        if (path.startsWith("/routes")) {
+            return CATALOG;
+        }
+        if (path.startsWith("/availability")) {
+            return AVAILABILITY;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,57 @@
+package com.buskaro.api.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token buckets, one per client and endpoint group, kept as a single "theoretical
+ * arrival time" each (the generic cell rate algorithm): taking a token is one CAS on an
+ * {@link AtomicLong}, with no lock and no refill thread. Idle clients are evicted, and the
+ * number tracked is bounded so a spray of spoofed addresses can't grow it without limit.
+ */
+final class TokenBuckets {
+    private record ClientKey(String client, EndpointGroup group) {
+    }
+
+    private final Cache<ClientKey, AtomicLong> buckets;
+    private final long[] intervalNanos = new long[EndpointGroup.values().length];
+    private final long[] toleranceNanos = new long[EndpointGroup.values().length];
+
+    TokenBuckets(double rateMultiplier, long maxClients, Duration idleExpiry) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(idleExpiry)
+                .build();
+        for (EndpointGroup group : EndpointGroup.values()) {
+            long interval = (long) (TimeUnit.SECONDS.toNanos(1) / (group.ratePerSecond * rateMultiplier));
+            intervalNanos[group.ordinal()] = interval;
+            toleranceNanos[group.ordinal()] = interval * (group.burst - 1);
+        }
+    }
+
+    /** Takes a token, returning 0, or returns how many nanoseconds until one is available. */
+    long tryAcquire(String client, EndpointGroup group, long nowNanos) {
+        ClientKey key = new ClientKey(client, group);
+        AtomicLong arrival = buckets.getIfPresent(key);
+        if (arrival == null) {
+            arrival = buckets.get(key, k -> new AtomicLong(nowNanos));
+        }
+        long interval = intervalNanos[group.ordinal()];
+        long tolerance = toleranceNanos[group.ordinal()];
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, nowNanos);
+            long wait = next - tolerance - nowNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, next + interval)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.buskaro.api.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Adds row accounting to every Spring Data repository, next to the per-method timers that Boot
+ * already records as {@code spring.data.repository.invocations}:
+ * <ul>
+ *   <li>{@code spring.data.repository.rows} - rows returned per call, by repository and method;</li>
+ *   <li>{@code spring.data.repository.unbounded.findall} - unpaged {@code findAll} calls made
+ *   while serving an HTTP request, which should stay at zero.</li>
+ * </ul>
+ * Meters are resolved once per method, so a call costs a map lookup and a record.
+ */
+@Configuration
+public class RepositoryMetricsConfig {
+
+    @Bean
+    public static BeanPostProcessor repositoryRowMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(
+                                    new RowMetricsInterceptor(meterRegistry.getObject(),
+                                            information.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Slf4j
+    static final class RowMetricsInterceptor implements MethodInterceptor {
+        private final MeterRegistry meterRegistry;
+        private final String repository;
+        private final Map<Method, DistributionSummary> rows = new ConcurrentHashMap<>();
+        private final Map<Method, Counter> unboundedFindAll = new ConcurrentHashMap<>();
+
+        RowMetricsInterceptor(MeterRegistry meterRegistry, String repository) {
+            this.meterRegistry = meterRegistry;
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method method = invocation.getMethod();
+            if (isUnboundedFindAll(method) && RequestContextHolder.getRequestAttributes() != null) {
+                unboundedFindAll.computeIfAbsent(method, m -> {
+                    log.warn("Unpaged {}.{} called while serving a request", repository, m.getName());
+                    return Counter.builder("spring.data.repository.unbounded.findall")
+                            .description("Unpaged findAll calls on a request thread")
+                            .tag("repository", repository)
+                            .tag("method", m.getName())
+                            .register(meterRegistry);
+                }).increment();
+            }
+            Object result = invocation.proceed();
+            if (result instanceof Stream<?> stream) {
+                // Counted as the caller consumes it, recorded once when the stream is closed
+                DistributionSummary summary = rowsSummary(method);
+                LongAdder streamed = new LongAdder();
+                return stream.peek(row -> streamed.increment()).onClose(() -> summary.record(streamed.sum()));
+            }
+            long count = rowCount(result);
+            if (count >= 0 && method.getReturnType() != void.class) {
+                rowsSummary(method).record(count);
+            }
+            return result;
+        }
+
+        private DistributionSummary rowsSummary(Method method) {
+            return rows.computeIfAbsent(method, m -> DistributionSummary.builder("spring.data.repository.rows")
+                    .description("Rows returned by a repository call")
+                    .baseUnit("rows")
+                    .tag("repository", repository)
+                    .tag("method", m.getName())
+                    .register(meterRegistry));
+        }
+
+        // Rows for collection-like and entity results; -1 for counts, flags and void
+        private static long rowCount(Object result) {
+            if (result == null) {
+                return 0;
+            }
+            if (result instanceof Collection<?> collection) {
+                return collection.size();
+            }
+            if (result instanceof Slice<?> slice) {
+                return slice.getNumberOfElements();
+            }
+            if (result instanceof Optional<?> optional) {
+                return optional.isPresent() ? 1 : 0;
+            }
+            if (result instanceof Number || result instanceof Boolean) {
+                return -1;
+            }
+            return 1;
+        }
+
+        private static boolean isUnboundedFindAll(Method method) {
+            return method.getName().equals("findAll")
+                    && Arrays.stream(method.getParameterTypes())
+                    .noneMatch(type -> Pageable.class.isAssignableFrom(type) || Limit.class.isAssignableFrom(type));
+        }
+    }
+}
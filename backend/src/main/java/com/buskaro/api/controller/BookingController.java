@@ -1,11 +1,12 @@
 package com.buskaro.api.controller;
 
 import com.buskaro.api.dto.booking.BookingResponse;
+import com.buskaro.api.entity.BookingStatus;
+import com.buskaro.api.security.AuthenticatedUser;
 import com.buskaro.api.service.BookingService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -18,8 +19,12 @@ public class BookingController {
     private final BookingService bookingService;
 
     @GetMapping
-    public ResponseEntity<List<BookingResponse>> getUserBookings(@AuthenticationPrincipal UserDetails userDetails) {
-        return ResponseEntity.ok(bookingService.getUserBookings(userDetails.getUsername())
+    public ResponseEntity<List<BookingResponse>> getUserBookings(
+            @RequestParam(required = false) BookingStatus status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        return ResponseEntity.ok(bookingService.getUserBookings(user.getId(), status, page, size)
                 .stream()
                 .map(BookingResponse::fromEntity)
                 .collect(Collectors.toList()));
@@ -29,16 +34,17 @@ public class BookingController {
     public ResponseEntity<BookingResponse> createBooking(
             @PathVariable Long routeId,
             @RequestParam String seats,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @RequestParam(required = false) String date,
+            @AuthenticationPrincipal AuthenticatedUser user) {
         return ResponseEntity.ok(BookingResponse.fromEntity(
-                bookingService.createBooking(userDetails.getUsername(), routeId, seats)));
+                bookingService.createBooking(user.getId(), routeId, date, seats)));
     }
 
     @PostMapping("/{bookingId}/cancel")
     public ResponseEntity<Void> cancelBooking(
             @PathVariable Long bookingId,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        bookingService.cancelBooking(bookingId);
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        bookingService.cancelBooking(user.getId(), bookingId);
         return ResponseEntity.ok().build();
     }
 } 
\ No newline at end of file
@@ -1,13 +1,27 @@
 package com.buskaro.api.controller;
 
 import com.buskaro.api.dto.route.BusRouteResponse;
+import com.buskaro.api.dto.route.CitySuggestionResponse;
+import com.buskaro.api.dto.route.ConnectionResponse;
+import com.buskaro.api.index.CatalogSnapshot;
 import com.buskaro.api.service.BusRouteService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -16,42 +30,176 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @CrossOrigin(origins = "http://localhost:8080")
 public class BusRouteController {
+    private static final String NEXT_CURSOR = "X-Next-Cursor";
+    private static final int STREAM_FLUSH_ROWS = 256;
+
     private final BusRouteService busRouteService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public ResponseEntity<List<BusRouteResponse>> getAllRoutes() {
-        return ResponseEntity.ok(busRouteService.getAllRoutes()
-                .stream()
-                .map(BusRouteResponse::fromEntity)
-                .collect(Collectors.toList()));
+    public ResponseEntity<List<BusRouteResponse>> getAllRoutes(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        return pageResponse(busRouteService.getRoutes(after, limit));
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllRoutes() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(outputStream)) {
+                json.writeStartArray();
+                int[] written = {0};
+                busRouteService.streamRoutes(trip -> {
+                    try {
+                        json.writeObject(BusRouteResponse.fromTrip(trip));
+                        if (++written[0] % STREAM_FLUSH_ROWS == 0) {
+                            json.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @GetMapping("/search")
     public ResponseEntity<List<BusRouteResponse>> searchRoutes(
             @RequestParam String from,
             @RequestParam String to,
-            @RequestParam String date) {
-        return ResponseEntity.ok(busRouteService.searchRoutes(from, to, date)
+            @RequestParam(required = false) String date,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "HH:mm") LocalTime departAfter,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "HH:mm") LocalTime departBefore,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int limit) {
+        return pageResponse(busRouteService.searchRoutes(from, to, date, departAfter, departBefore,
+                maxPrice, after, limit));
+    }
+
+    @GetMapping("/connections")
+    public ResponseEntity<List<ConnectionResponse>> searchConnections(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(required = false) String departAfter,
+            @RequestParam(defaultValue = "30") int minLayover,
+            @RequestParam(defaultValue = "2") int maxTransfers) {
+        return ResponseEntity.ok(busRouteService.searchConnections(from, to, departAfter, minLayover, maxTransfers)
                 .stream()
-                .map(BusRouteResponse::fromEntity)
+                .map(ConnectionResponse::fromConnection)
                 .collect(Collectors.toList()));
     }
 
     @GetMapping("/cities")
-    public ResponseEntity<List<String>> getAllCities() {
-        return ResponseEntity.ok(busRouteService.getAllCities());
+    public ResponseEntity<byte[]> getAllCities(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return catalogResponse(busRouteService.getAllCities(), ifNoneMatch, acceptEncoding);
+    }
+
+    @GetMapping("/cities/suggest")
+    public ResponseEntity<List<CitySuggestionResponse>> suggestCities(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(busRouteService.suggestCities(q, limit)
+                .stream()
+                .map(CitySuggestionResponse::fromSuggestion)
+                .collect(Collectors.toList()));
     }
 
     @GetMapping("/operators")
-    public ResponseEntity<List<String>> getAllOperators() {
-        return ResponseEntity.ok(busRouteService.getAllOperators());
+    public ResponseEntity<byte[]> getAllOperators(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return catalogResponse(busRouteService.getAllOperators(), ifNoneMatch, acceptEncoding);
     }
 
     @GetMapping("/popular")
     public ResponseEntity<List<BusRouteResponse>> getPopularRoutes() {
         return ResponseEntity.ok(busRouteService.getPopularRoutes()
                 .stream()
-                .map(BusRouteResponse::fromEntity)
+                .map(BusRouteResponse::fromTrip)
+                .collect(Collectors.toList()));
+    }
+
+    private static ResponseEntity<List<BusRouteResponse>> pageResponse(BusRouteService.TripPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR, page.nextCursor());
+        }
+        return response.body(page.trips()
+                .stream()
+                .map(BusRouteResponse::fromTrip)
                 .collect(Collectors.toList()));
     }
-} 
\ No newline at end of file
+
+    private static ResponseEntity<byte[]> catalogResponse(CatalogSnapshot.Payload payload,
+                                                          String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? payload.gzipEtag() : payload.etag();
+        boolean notModified = matchesEtag(ifNoneMatch, payload);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (notModified) {
+            return response.build();
+        }
+        response.contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.gzip());
+        }
+        return response.body(payload.json());
+    }
+
+    /**
+     * Whether Accept-Encoding allows gzip, by name or through {@code *}, with a q-value above 0.
+     * Other codings, {@code x-gzip} included, don't count.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzip = -1;
+        double any = -1;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim();
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equalsIgnoreCase("gzip")) {
+                gzip = q;
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        return (gzip >= 0 ? gzip : any) > 0;
+    }
+
+    private static boolean matchesEtag(String ifNoneMatch, CatalogSnapshot.Payload payload) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(payload.etag()) || candidate.equals(payload.gzipEtag())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,11 +1,11 @@
 package com.buskaro.api.controller;
 
 import com.buskaro.api.dto.cart.CartItemResponse;
+import com.buskaro.api.security.AuthenticatedUser;
 import com.buskaro.api.service.CartService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -18,8 +18,8 @@ public class CartController {
     private final CartService cartService;
 
     @GetMapping
-    public ResponseEntity<List<CartItemResponse>> getCartItems(@AuthenticationPrincipal UserDetails userDetails) {
-        return ResponseEntity.ok(cartService.getCartItems(userDetails.getUsername())
+    public ResponseEntity<List<CartItemResponse>> getCartItems(@AuthenticationPrincipal AuthenticatedUser user) {
+        return ResponseEntity.ok(cartService.getCartItems(user.getId())
                 .stream()
                 .map(CartItemResponse::fromEntity)
                 .collect(Collectors.toList()));
@@ -29,22 +29,23 @@ public class CartController {
     public ResponseEntity<CartItemResponse> addToCart(
             @PathVariable Long routeId,
             @RequestParam String seats,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @RequestParam(required = false) String date,
+            @AuthenticationPrincipal AuthenticatedUser user) {
         return ResponseEntity.ok(CartItemResponse.fromEntity(
-                cartService.addToCart(userDetails.getUsername(), routeId, seats)));
+                cartService.addToCart(user.getId(), routeId, date, seats)));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> removeFromCart(
             @PathVariable Long id,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        cartService.removeFromCart(userDetails.getUsername(), id);
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        cartService.removeFromCart(user.getId(), id);
         return ResponseEntity.ok().build();
     }
 
     @DeleteMapping
-    public ResponseEntity<Void> clearCart(@AuthenticationPrincipal UserDetails userDetails) {
-        cartService.clearCart(userDetails.getUsername());
+    public ResponseEntity<Void> clearCart(@AuthenticationPrincipal AuthenticatedUser user) {
+        cartService.clearCart(user.getId());
         return ResponseEntity.ok().build();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.buskaro.api.controller;
+
+import com.buskaro.api.dto.route.RouteImportResponse;
+import com.buskaro.api.exception.ResourceNotFoundException;
+import com.buskaro.api.importer.RouteImportJob;
+import com.buskaro.api.importer.RouteImporter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/routes/import")
+@RequiredArgsConstructor
+public class RouteImportController {
+    private final RouteImporter routeImporter;
+
+    /** Accepts a CSV timetable as the raw request body and imports it in the background. */
+    @PostMapping(consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<RouteImportResponse> startImport(InputStream body) throws IOException {
+        RouteImportJob job = routeImporter.start(body);
+        return ResponseEntity
+                .accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(job.getId()).toUri())
+                .body(RouteImportResponse.fromJob(job));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<RouteImportResponse> getImport(@PathVariable String id) {
+        return routeImporter.job(id)
+                .map(job -> ResponseEntity.ok(RouteImportResponse.fromJob(job)))
+                .orElseThrow(() -> new ResourceNotFoundException("Import not found"));
+    }
+}
@@ -0,0 +1,22 @@
+package com.buskaro.api.controller;
+
+import com.buskaro.api.inventory.SeatAvailabilityBroadcaster;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/availability")
+@RequiredArgsConstructor
+public class SeatAvailabilityController {
+    private final SeatAvailabilityBroadcaster seatAvailabilityBroadcaster;
+
+    @GetMapping
+    public SseEmitter subscribe(
+            @RequestParam(defaultValue = "") List<Long> routeIds,
+            @RequestParam(defaultValue = "") List<Long> tripIds) {
+        return seatAvailabilityBroadcaster.subscribe(routeIds, tripIds);
+    }
+}
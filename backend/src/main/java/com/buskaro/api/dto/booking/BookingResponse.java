@@ -1,24 +1,35 @@
 package com.buskaro.api.dto.booking;
 
 import com.buskaro.api.entity.Booking;
+import com.buskaro.api.entity.BookingStatus;
 import lombok.Data;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
 @Data
 public class BookingResponse {
     private Long id;
     private Long userId;
     private Long routeId;
-    private String seats;
-    private String totalAmount;
-    private String bookingDate;
-    private String status;
+    private Long tripId;
+    private LocalDate travelDate;
+    private Integer seats;
+    private String seatNumbers;
+    private BigDecimal totalAmount;
+    private LocalDateTime bookingDate;
+    private BookingStatus status;
 
     public static BookingResponse fromEntity(Booking booking) {
         BookingResponse response = new BookingResponse();
         response.setId(booking.getId());
         response.setUserId(booking.getUserId());
         response.setRouteId(booking.getRouteId());
+        response.setTripId(booking.getTripId());
+        response.setTravelDate(booking.getTravelDate());
         response.setSeats(booking.getSeats());
+        response.setSeatNumbers(booking.getSeatNumbers());
         response.setTotalAmount(booking.getTotalAmount());
         response.setBookingDate(booking.getBookingDate());
         response.setStatus(booking.getStatus());
@@ -3,21 +3,32 @@ package com.buskaro.api.dto.cart;
 import com.buskaro.api.entity.CartItem;
 import lombok.Data;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
 @Data
 public class CartItemResponse {
     private Long id;
     private Long userId;
     private Long routeId;
-    private String seats;
-    private String createdAt;
+    private Long tripId;
+    private LocalDate travelDate;
+    private Integer seats;
+    private String seatNumbers;
+    private LocalDateTime createdAt;
+    private LocalDateTime holdExpiresAt;
 
     public static CartItemResponse fromEntity(CartItem cartItem) {
         CartItemResponse response = new CartItemResponse();
         response.setId(cartItem.getId());
         response.setUserId(cartItem.getUserId());
         response.setRouteId(cartItem.getRouteId());
+        response.setTripId(cartItem.getTripId());
+        response.setTravelDate(cartItem.getTravelDate());
         response.setSeats(cartItem.getSeats());
+        response.setSeatNumbers(cartItem.getSeatNumbers());
         response.setCreatedAt(cartItem.getCreatedAt());
+        response.setHoldExpiresAt(cartItem.getHoldExpiresAt());
         return response;
     }
 } 
\ No newline at end of file
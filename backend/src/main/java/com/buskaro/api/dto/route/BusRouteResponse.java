@@ -1,23 +1,34 @@
 package com.buskaro.api.dto.route;
 
 import com.buskaro.api.entity.BusRoute;
+import com.buskaro.api.trip.ScheduledTrip;
+import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.Data;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
 @Data
 public class BusRouteResponse {
     private Long id;
     private String origin;
     private String destination;
-    private String departureTime;
-    private String arrivalTime;
+    @JsonFormat(pattern = "HH:mm")
+    private LocalTime departureTime;
+    @JsonFormat(pattern = "HH:mm")
+    private LocalTime arrivalTime;
     private String busOperator;
     private String busType;
-    private String totalSeats;
-    private String seatsAvailable;
-    private String pricePerSeat;
+    private Integer totalSeats;
+    private Integer seatsAvailable;
+    private BigDecimal pricePerSeat;
     private String amenities;
+    private Long tripId;
+    private LocalDate travelDate;
 
-    public static BusRouteResponse fromEntity(BusRoute busRoute) {
+    // Seat counts belong to trips; bus_routes.seats_available is no longer kept current
+    private static BusRouteResponse fromEntity(BusRoute busRoute) {
         BusRouteResponse response = new BusRouteResponse();
         response.setId(busRoute.getId());
         response.setOrigin(busRoute.getOrigin());
@@ -27,9 +38,16 @@ public class BusRouteResponse {
         response.setBusOperator(busRoute.getBusOperator());
         response.setBusType(busRoute.getBusType());
         response.setTotalSeats(busRoute.getTotalSeats());
-        response.setSeatsAvailable(busRoute.getSeatsAvailable());
         response.setPricePerSeat(busRoute.getPricePerSeat());
         response.setAmenities(busRoute.getAmenities());
         return response;
     }
+
+    public static BusRouteResponse fromTrip(ScheduledTrip trip) {
+        BusRouteResponse response = fromEntity(trip.route());
+        response.setTripId(trip.tripId());
+        response.setTravelDate(trip.travelDate());
+        response.setSeatsAvailable(trip.seatsAvailable());
+        return response;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.buskaro.api.dto.route;
+
+import com.buskaro.api.index.CityAutocomplete;
+import lombok.Data;
+
+@Data
+public class CitySuggestionResponse {
+    private String city;
+    private Integer routeCount;
+    private Boolean fuzzy;
+
+    public static CitySuggestionResponse fromSuggestion(CityAutocomplete.Suggestion suggestion) {
+        CitySuggestionResponse response = new CitySuggestionResponse();
+        response.setCity(suggestion.city());
+        response.setRouteCount(suggestion.routes());
+        response.setFuzzy(suggestion.distance() > 0);
+        return response;
+    }
+}
@@ -0,0 +1,48 @@
+package com.buskaro.api.dto.route;
+
+import com.buskaro.api.index.ConnectionSearch;
+import com.buskaro.api.service.BusRouteService;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ConnectionResponse {
+    private String departureTime;
+    private String arrivalTime;
+    private int arrivalDayOffset;
+    private int durationMinutes;
+    private int transfers;
+    private List<Leg> legs;
+
+    @Data
+    public static class Leg {
+        private int dayOffset;
+        private BusRouteResponse route;
+    }
+
+    public static ConnectionResponse fromConnection(BusRouteService.Connection connection) {
+        ConnectionSearch.Journey journey = connection.journey();
+        ConnectionResponse response = new ConnectionResponse();
+        response.setDepartureTime(formatMinute(journey.departureMinute()));
+        response.setArrivalTime(formatMinute(journey.arrivalMinute()));
+        response.setArrivalDayOffset(journey.arrivalMinute() / ConnectionSearch.MINUTES_PER_DAY);
+        response.setDurationMinutes(journey.arrivalMinute() - journey.departureMinute());
+        response.setTransfers(journey.transfers());
+        List<Leg> legs = new ArrayList<>(journey.legs().size());
+        for (int i = 0; i < journey.legs().size(); i++) {
+            Leg dto = new Leg();
+            dto.setDayOffset(journey.legs().get(i).departureMinute() / ConnectionSearch.MINUTES_PER_DAY);
+            dto.setRoute(BusRouteResponse.fromTrip(connection.legTrips().get(i)));
+            legs.add(dto);
+        }
+        response.setLegs(legs);
+        return response;
+    }
+
+    private static String formatMinute(int minute) {
+        int ofDay = minute % ConnectionSearch.MINUTES_PER_DAY;
+        return String.format("%02d:%02d", ofDay / 60, ofDay % 60);
+    }
+}
@@ -0,0 +1,46 @@
+package com.buskaro.api.dto.route;
+
+import com.buskaro.api.importer.RouteImportJob;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+public class RouteImportResponse {
+    private String id;
+    private String state;
+    private String source;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private double percentComplete;
+    private long rowsRead;
+    private long inserted;
+    private long updated;
+    private long unchanged;
+    private long rejected;
+    private long capacityChangesSkipped;
+    private double rowsPerSecond;
+    private String failure;
+    private List<String> errors;
+
+    public static RouteImportResponse fromJob(RouteImportJob job) {
+        RouteImportResponse response = new RouteImportResponse();
+        response.setId(job.getId());
+        response.setState(job.getState().name());
+        response.setSource(job.getSource());
+        response.setStartedAt(job.getStartedAt());
+        response.setFinishedAt(job.getFinishedAt());
+        response.setPercentComplete(Math.round(job.getPercentComplete() * 10) / 10.0);
+        response.setRowsRead(job.getRowsRead());
+        response.setInserted(job.getInserted());
+        response.setUpdated(job.getUpdated());
+        response.setUnchanged(job.getUnchanged());
+        response.setRejected(job.getRejected());
+        response.setCapacityChangesSkipped(job.getCapacityChangesSkipped());
+        response.setRowsPerSecond(Math.round(job.getRowsPerSecond()));
+        response.setFailure(job.getFailure());
+        response.setErrors(job.getErrors());
+        return response;
+    }
+}
@@ -1,20 +1,33 @@
 package com.buskaro.api.entity;
 
+import com.buskaro.api.ledger.LedgerEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
 @Entity
 @Table(name = "bookings")
+@EntityListeners(LedgerEntityListener.class)
 @Data
 public class Booking {
+    // Pooled sequence rather than IDENTITY so Hibernate can batch inserts at checkout
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
     
     private Long userId;
     private Long routeId;
-    private String seats;
-    private String totalAmount;
-    private String bookingDate;
-    private String status;
+    private Long tripId;
+    private LocalDate travelDate;
+    private Integer seats;
+    private String seatNumbers;
+    private BigDecimal totalAmount;
+    private LocalDateTime bookingDate;
+
+    @Enumerated(EnumType.STRING)
+    private BookingStatus status;
 } 
\ No newline at end of file
@@ -1,10 +1,15 @@
 package com.buskaro.api.entity;
 
+import com.buskaro.api.index.RouteChangeListener;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.math.BigDecimal;
+import java.time.LocalTime;
+
 @Entity
 @Table(name = "bus_routes")
+@EntityListeners(RouteChangeListener.class)
 @Data
 public class BusRoute {
     @Id
@@ -13,12 +18,36 @@ public class BusRoute {
     
     private String origin;
     private String destination;
-    private String departureTime;
-    private String arrivalTime;
+    private LocalTime departureTime;
+    private LocalTime arrivalTime;
     private String busOperator;
     private String busType;
-    private String totalSeats;
-    private String seatsAvailable;
-    private String pricePerSeat;
+    private Integer totalSeats;
+    private Integer seatsAvailable;
+    private BigDecimal pricePerSeat;
     private String amenities;
-} 
\ No newline at end of file
+
+    @Version
+    private Long version;
+
+    /**
+     * Detached copy used by the in-memory indexes, so later changes to a managed entity
+     * can't leak into them before they are committed.
+     */
+    public BusRoute snapshot() {
+        BusRoute copy = new BusRoute();
+        copy.setId(id);
+        copy.setOrigin(origin);
+        copy.setDestination(destination);
+        copy.setDepartureTime(departureTime);
+        copy.setArrivalTime(arrivalTime);
+        copy.setBusOperator(busOperator);
+        copy.setBusType(busType);
+        copy.setTotalSeats(totalSeats);
+        copy.setSeatsAvailable(seatsAvailable);
+        copy.setPricePerSeat(pricePerSeat);
+        copy.setAmenities(amenities);
+        copy.setVersion(version);
+        return copy;
+    }
+}
@@ -1,10 +1,15 @@
 package com.buskaro.api.entity;
 
+import com.buskaro.api.ledger.LedgerEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
 @Entity
 @Table(name = "cart_items")
+@EntityListeners(LedgerEntityListener.class)
 @Data
 public class CartItem {
     @Id
@@ -13,6 +18,10 @@ public class CartItem {
     
     private Long userId;
     private Long routeId;
-    private String seats;
-    private String createdAt;
+    private Long tripId;
+    private LocalDate travelDate;
+    private Integer seats;
+    private String seatNumbers;
+    private LocalDateTime createdAt;
+    private LocalDateTime holdExpiresAt;
 } 
\ No newline at end of file
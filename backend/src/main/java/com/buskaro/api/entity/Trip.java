@@ -0,0 +1,24 @@
+package com.buskaro.api.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/** One {@link BusRoute} running on one service day, with its own seat inventory. */
+@Entity
+@Table(name = "trips")
+@Data
+public class Trip {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long routeId;
+    private LocalDate travelDate;
+    private Integer totalSeats;
+    private Integer seatsAvailable;
+
+    @Version
+    private Long version;
+}
@@ -1,10 +1,14 @@
 package com.buskaro.api.entity;
 
+import com.buskaro.api.security.UserChangeListener;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Table(name = "users")
+@EntityListeners(UserChangeListener.class)
 @Data
 public class User {
     @Id
@@ -15,5 +19,8 @@ public class User {
     private String password;
     private String name;
     private String phone;
-    private String createdAt;
+    private LocalDateTime createdAt;
+
+    @Enumerated(EnumType.STRING)
+    private UserRole role = UserRole.USER;
 } 
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.buskaro.api.entity;
+
+public enum UserRole {
+    USER,
+    // May bulk-import routes; only granted in the database, never through signup
+    OPERATOR
+}
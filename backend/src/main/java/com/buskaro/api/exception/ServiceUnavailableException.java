@@ -0,0 +1,18 @@
+package com.buskaro.api.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when a request is shed because a bounded resource is saturated. Mapped to 503 with
+ * a {@code Retry-After} header so clients back off instead of retrying immediately.
+ */
+@Getter
+public class ServiceUnavailableException extends BusinessException {
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message, HttpStatus.SERVICE_UNAVAILABLE);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,119 @@
+package com.buskaro.api.importer;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * One validated timetable row. {@code (busOperator, origin, destination, departureTime)} is
+ * the natural key that imports upsert on.
+ */
+record ImportedRoute(int line,
+                     String origin,
+                     String destination,
+                     LocalTime departureTime,
+                     LocalTime arrivalTime,
+                     String busOperator,
+                     String busType,
+                     int totalSeats,
+                     BigDecimal pricePerSeat,
+                     String amenities) {
+
+    static final String[] REQUIRED_COLUMNS = {
+            "origin", "destination", "departure_time", "arrival_time", "bus_operator", "total_seats", "price_per_seat"
+    };
+    private static final int MAX_SEATS = 1_000;
+    // numeric(10, 2)
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+
+    record Key(String busOperator, String origin, String destination, LocalTime departureTime) {
+    }
+
+    Key key() {
+        return new Key(busOperator, origin, destination, departureTime);
+    }
+
+    /** Whether the bookable attributes differ from an existing row; capacity is compared separately. */
+    boolean differsFrom(ImportedRoute existing) {
+        return !Objects.equals(arrivalTime, existing.arrivalTime)
+                || !Objects.equals(busType, existing.busType)
+                || pricePerSeat.compareTo(existing.pricePerSeat) != 0
+                || !Objects.equals(amenities, existing.amenities);
+    }
+
+    /**
+     * Validates one record against the header's column positions.
+     *
+     * @throws IllegalArgumentException describing the first problem found
+     */
+    static ImportedRoute parse(int line, String[] fields, Map<String, Integer> columns) {
+        String origin = required(fields, columns, "origin", 100);
+        String destination = required(fields, columns, "destination", 100);
+        if (origin.equalsIgnoreCase(destination)) {
+            throw new IllegalArgumentException("origin and destination are the same");
+        }
+        LocalTime departure = time(required(fields, columns, "departure_time", 8), "departure_time");
+        LocalTime arrival = time(required(fields, columns, "arrival_time", 8), "arrival_time");
+        String operator = required(fields, columns, "bus_operator", 255);
+        String busType = optional(fields, columns, "bus_type", 100);
+        int seats;
+        try {
+            seats = Integer.parseInt(required(fields, columns, "total_seats", 10));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("total_seats is not a number");
+        }
+        if (seats < 1 || seats > MAX_SEATS) {
+            throw new IllegalArgumentException("total_seats must be between 1 and " + MAX_SEATS);
+        }
+        BigDecimal price;
+        try {
+            price = new BigDecimal(required(fields, columns, "price_per_seat", 20));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price_per_seat is not a number");
+        }
+        if (price.signum() < 0 || price.compareTo(MAX_PRICE) > 0 || price.stripTrailingZeros().scale() > 2) {
+            throw new IllegalArgumentException("price_per_seat must be between 0 and " + MAX_PRICE + " with at most 2 decimals");
+        }
+        return new ImportedRoute(line, origin, destination, departure, arrival, operator, busType, seats, price,
+                optional(fields, columns, "amenities", 1000));
+    }
+
+    /** Header names are matched ignoring case, spaces and underscores, so departureTime works too. */
+    static String normalizeColumn(String header) {
+        return header.trim().replace("_", "").replace(" ", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String required(String[] fields, Map<String, Integer> columns, String column, int maxLength) {
+        String value = optional(fields, columns, column, maxLength);
+        if (value == null) {
+            throw new IllegalArgumentException(column + " is required");
+        }
+        return value;
+    }
+
+    private static String optional(String[] fields, Map<String, Integer> columns, String column, int maxLength) {
+        Integer index = columns.get(normalizeColumn(column));
+        if (index == null || index >= fields.length) {
+            return null;
+        }
+        String value = fields[index].trim();
+        if (value.isEmpty()) {
+            return null;
+        }
+        if (value.length() > maxLength) {
+            throw new IllegalArgumentException(column + " is longer than " + maxLength + " characters");
+        }
+        return value;
+    }
+
+    private static LocalTime time(String value, String column) {
+        try {
+            return LocalTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(column + " must be HH:mm");
+        }
+    }
+}
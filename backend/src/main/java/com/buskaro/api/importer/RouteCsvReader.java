@@ -0,0 +1,96 @@
+package com.buskaro.api.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming RFC 4180 reader: comma separated, fields optionally double-quoted, quotes
+ * escaped by doubling, quoted fields may span lines. Holds one record in memory at a time.
+ */
+final class RouteCsvReader {
+    private final Reader in;
+    private int line = 1;
+    private int recordLine;
+    private int pushedBack = -2;
+
+    RouteCsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /** The line the last record returned by {@link #next()} started on. */
+    int recordLine() {
+        return recordLine;
+    }
+
+    /** The next record's fields, or {@code null} at end of input. Blank lines are skipped. */
+    String[] next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean sawAnything = false;
+        recordLine = line;
+        int c;
+        while ((c = read()) != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        unread(following);
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+                continue;
+            }
+            if (c == '"' && field.isEmpty()) {
+                quoted = true;
+                sawAnything = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                sawAnything = true;
+            } else if (c == '\r') {
+                // Tolerate CRLF; the '\n' that follows ends the record
+            } else if (c == '\n') {
+                line++;
+                if (sawAnything || !field.isEmpty()) {
+                    fields.add(field.toString());
+                    return fields.toArray(String[]::new);
+                }
+                recordLine = line;
+            } else {
+                field.append((char) c);
+                sawAnything = true;
+            }
+        }
+        if (quoted) {
+            throw new IOException("Unterminated quoted field starting on line " + recordLine);
+        }
+        if (sawAnything || !field.isEmpty()) {
+            fields.add(field.toString());
+            return fields.toArray(String[]::new);
+        }
+        return null;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return in.read();
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+}
@@ -0,0 +1,143 @@
+package com.buskaro.api.importer;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Live progress of one route import; updated by the importer and read by status requests. */
+public class RouteImportJob {
+    private static final int MAX_ERRORS = 100;
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    @Getter
+    private final String id = UUID.randomUUID().toString();
+    @Getter
+    private final String source;
+    @Getter
+    private final long sizeBytes;
+    @Getter
+    private final Instant startedAt = Instant.now();
+    @Getter
+    private volatile State state = State.RUNNING;
+    @Getter
+    private volatile Instant finishedAt;
+    @Getter
+    private volatile String failure;
+
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong updated = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong capacityChangesSkipped = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+
+    RouteImportJob(String source, long sizeBytes) {
+        this.source = source;
+        this.sizeBytes = sizeBytes;
+    }
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getInserted() {
+        return inserted.get();
+    }
+
+    public long getUpdated() {
+        return updated.get();
+    }
+
+    public long getUnchanged() {
+        return unchanged.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getCapacityChangesSkipped() {
+        return capacityChangesSkipped.get();
+    }
+
+    /** The first {@value MAX_ERRORS} row errors, as {@code "line N: problem"}. */
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+
+    /** Share of the input consumed, 0 to 100; unknown sizes report 0 until the job ends. */
+    public double getPercentComplete() {
+        if (state != State.RUNNING) {
+            return 100;
+        }
+        return sizeBytes > 0 ? Math.min(100, 100.0 * bytesRead.get() / sizeBytes) : 0;
+    }
+
+    public double getRowsPerSecond() {
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+        return rowsRead.get() * 1000.0 / millis;
+    }
+
+    void addBytesRead(long bytes) {
+        bytesRead.addAndGet(bytes);
+    }
+
+    void addRowsRead(long rows) {
+        rowsRead.addAndGet(rows);
+    }
+
+    void addInserted(long rows) {
+        inserted.addAndGet(rows);
+    }
+
+    void addUpdated(long rows) {
+        updated.addAndGet(rows);
+    }
+
+    void addUnchanged(long rows) {
+        unchanged.addAndGet(rows);
+    }
+
+    void addCapacityChangesSkipped(long rows) {
+        capacityChangesSkipped.addAndGet(rows);
+    }
+
+    void reject(int line, String problem) {
+        rejected.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("line " + line + ": " + problem);
+            }
+        }
+    }
+
+    void complete() {
+        finishedAt = Instant.now();
+        state = State.COMPLETED;
+    }
+
+    void fail(String message) {
+        failure = message;
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+}
@@ -0,0 +1,372 @@
+package com.buskaro.api.importer;
+
+import com.buskaro.api.exception.BusinessException;
+import com.buskaro.api.service.BusRouteService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk route import from CSV. The file is read as a stream and cut into chunks. Chunks are
+ * validated in parallel, then written in file order, each in its own transaction: one keyed
+ * lookup finds the rows that already exist, then JDBC batches insert new routes and update
+ * changed ones. Once the import ends the in-memory route indexes are rebuilt in one pass.
+ *
+ * <p>Rows are matched on {@code (bus_operator, origin, destination, departure_time)}. Existing
+ * routes keep their seat capacity, because {@link com.buskaro.api.inventory.SeatInventory} may
+ * already be holding seats against it; a changed capacity is only counted. One import runs at a
+ * time, and a failed import keeps the chunks it had already committed.
+ */
+@Slf4j
+@Component
+public class RouteImporter {
+    private static final int MAX_JOBS_KEPT = 20;
+    private static final int LOOKUP_BATCH = 500;
+    private static final int LOG_EVERY_CHUNKS = 20;
+
+    private static final String INSERT = "insert into bus_routes (origin, destination, departure_time, arrival_time, "
+            + "bus_operator, bus_type, total_seats, seats_available, price_per_seat, amenities, version) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    // Bumping the version makes concurrent JPA writes of a stale row fail their optimistic check
+    private static final String UPDATE = "update bus_routes set arrival_time = ?, bus_type = ?, price_per_seat = ?, "
+            + "amenities = ?, version = coalesce(version, 0) + 1 where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BusRouteService busRouteService;
+    private final int chunkSize;
+    private final int validationThreads;
+    private final ExecutorService validators;
+    private final ExecutorService runner;
+    private final AtomicBoolean busy = new AtomicBoolean();
+    private final Map<String, RouteImportJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RouteImportJob> eldest) {
+            return size() > MAX_JOBS_KEPT;
+        }
+    });
+
+    private record Existing(long id, ImportedRoute route) {
+    }
+
+    private record Chunk(List<ImportedRoute> routes, int rows) {
+    }
+
+    public RouteImporter(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         BusRouteService busRouteService,
+                         @Value("${route-import.chunk-size:1000}") int chunkSize,
+                         @Value("${route-import.validation-threads:0}") int validationThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.busRouteService = busRouteService;
+        this.chunkSize = chunkSize;
+        this.validationThreads = validationThreads > 0 ? validationThreads : Runtime.getRuntime().availableProcessors();
+        this.validators = Executors.newFixedThreadPool(this.validationThreads, daemonThreads("route-import-validator-"));
+        this.runner = Executors.newSingleThreadExecutor(daemonThreads("route-import-"));
+    }
+
+    /**
+     * Spools {@code csv} to a temporary file and imports it in the background.
+     *
+     * @throws BusinessException with 409 when another import is still running
+     */
+    public RouteImportJob start(InputStream csv) throws IOException {
+        acquire();
+        Path file;
+        try {
+            file = Files.createTempFile("route-import", ".csv");
+            try {
+                Files.copy(csv, file, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+        } catch (IOException | RuntimeException e) {
+            busy.set(false);
+            throw e;
+        }
+        RouteImportJob job = register(new RouteImportJob("upload", Files.size(file)));
+        runner.execute(() -> {
+            try (InputStream in = Files.newInputStream(file)) {
+                execute(job, in);
+            } catch (IOException e) {
+                busy.set(false);
+                job.fail(e.getMessage());
+            } finally {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("Could not delete import spool file {}", file, e);
+                }
+            }
+        });
+        return job;
+    }
+
+    /** Imports {@code csv} on the calling thread and returns the finished job. */
+    public RouteImportJob importNow(String source, InputStream csv) {
+        acquire();
+        RouteImportJob job = register(new RouteImportJob(source, -1));
+        execute(job, csv);
+        return job;
+    }
+
+    public Optional<RouteImportJob> job(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+        validators.shutdownNow();
+    }
+
+    private void acquire() {
+        if (!busy.compareAndSet(false, true)) {
+            throw new BusinessException("A route import is already running", HttpStatus.CONFLICT);
+        }
+    }
+
+    private RouteImportJob register(RouteImportJob job) {
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    /** Runs the import and releases the import slot before publishing the job's final state. */
+    private void execute(RouteImportJob job, InputStream csv) {
+        log.info("Route import {} started from {}", job.getId(), job.getSource());
+        int window = validationThreads * 2;
+        ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>(window);
+        Throwable failure = null;
+        try {
+            RouteCsvReader reader = new RouteCsvReader(new BufferedReader(
+                    new InputStreamReader(new CountingInputStream(csv, job), StandardCharsets.UTF_8)));
+            Map<String, Integer> columns = header(reader.next());
+            int written = 0;
+            List<String[]> records = new ArrayList<>(chunkSize);
+            List<Integer> lines = new ArrayList<>(chunkSize);
+            String[] record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+                lines.add(reader.recordLine());
+                if (records.size() == chunkSize) {
+                    // Bounded look-ahead: at most `window` chunks are held in memory at once
+                    if (pending.size() == window) {
+                        write(job, pending.removeFirst().get(), ++written);
+                    }
+                    pending.addLast(validate(job, records, lines, columns));
+                    records = new ArrayList<>(chunkSize);
+                    lines = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!records.isEmpty()) {
+                pending.addLast(validate(job, records, lines, columns));
+            }
+            while (!pending.isEmpty()) {
+                write(job, pending.removeFirst().get(), ++written);
+            }
+        } catch (ExecutionException e) {
+            failure = e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+            // Chunks already committed stay, so the indexes are rebuilt even after a failure
+            busRouteService.rebuildIndexes();
+            busy.set(false);
+        }
+        if (failure == null) {
+            job.complete();
+        } else {
+            log.warn("Route import {} failed", job.getId(), failure);
+            job.fail(failure.getMessage() != null ? failure.getMessage() : failure.getClass().getSimpleName());
+        }
+        log.info("Route import {} {}: {} rows read, {} inserted, {} updated, {} unchanged, {} rejected, {} rows/s",
+                job.getId(), job.getState(), job.getRowsRead(), job.getInserted(), job.getUpdated(),
+                job.getUnchanged(), job.getRejected(), String.format("%.0f", job.getRowsPerSecond()));
+    }
+
+    private static Map<String, Integer> header(String[] header) {
+        if (header == null) {
+            throw new BusinessException("The import file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            columns.putIfAbsent(ImportedRoute.normalizeColumn(header[i].replace("\uFEFF", "")), i);
+        }
+        for (String column : ImportedRoute.REQUIRED_COLUMNS) {
+            if (!columns.containsKey(ImportedRoute.normalizeColumn(column))) {
+                throw new BusinessException("The import file has no " + column + " column");
+            }
+        }
+        return columns;
+    }
+
+    private Future<Chunk> validate(RouteImportJob job, List<String[]> records, List<Integer> lines,
+                                   Map<String, Integer> columns) {
+        return validators.submit(() -> {
+            List<ImportedRoute> routes = new ArrayList<>(records.size());
+            for (int i = 0; i < records.size(); i++) {
+                try {
+                    routes.add(ImportedRoute.parse(lines.get(i), records.get(i), columns));
+                } catch (IllegalArgumentException e) {
+                    job.reject(lines.get(i), e.getMessage());
+                }
+            }
+            return new Chunk(routes, records.size());
+        });
+    }
+
+    private void write(RouteImportJob job, Chunk chunk, int chunkNumber) {
+        // A key repeated within the chunk is written once, with its last values
+        Map<ImportedRoute.Key, ImportedRoute> byKey = new LinkedHashMap<>();
+        for (ImportedRoute route : chunk.routes()) {
+            byKey.put(route.key(), route);
+        }
+        int duplicates = chunk.routes().size() - byKey.size();
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<ImportedRoute.Key, Existing> existing = findExisting(new ArrayList<>(byKey.keySet()));
+            List<Object[]> inserts = new ArrayList<>();
+            List<Object[]> updates = new ArrayList<>();
+            long unchanged = duplicates;
+            long capacityChanges = 0;
+            for (ImportedRoute route : byKey.values()) {
+                Existing current = existing.get(route.key());
+                if (current == null) {
+                    inserts.add(new Object[]{route.origin(), route.destination(), route.departureTime(),
+                            route.arrivalTime(), route.busOperator(), route.busType(), route.totalSeats(),
+                            route.totalSeats(), route.pricePerSeat(), route.amenities()});
+                    continue;
+                }
+                if (current.route().totalSeats() != route.totalSeats()) {
+                    capacityChanges++;
+                }
+                if (route.differsFrom(current.route())) {
+                    updates.add(new Object[]{route.arrivalTime(), route.busType(), route.pricePerSeat(),
+                            route.amenities(), current.id()});
+                } else {
+                    unchanged++;
+                }
+            }
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT, inserts);
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE, updates);
+            }
+            job.addInserted(inserts.size());
+            job.addUpdated(updates.size());
+            job.addUnchanged(unchanged);
+            job.addCapacityChangesSkipped(capacityChanges);
+        });
+        job.addRowsRead(chunk.rows());
+        if (chunkNumber % LOG_EVERY_CHUNKS == 0) {
+            log.info("Route import {}: {} rows, {}% of input, {} rows/s", job.getId(), job.getRowsRead(),
+                    String.format("%.0f", job.getPercentComplete()), String.format("%.0f", job.getRowsPerSecond()));
+        }
+    }
+
+    private Map<ImportedRoute.Key, Existing> findExisting(List<ImportedRoute.Key> keys) {
+        Map<ImportedRoute.Key, Existing> existing = new HashMap<>(keys.size() * 4 / 3 + 1);
+        for (int from = 0; from < keys.size(); from += LOOKUP_BATCH) {
+            List<ImportedRoute.Key> batch = keys.subList(from, Math.min(keys.size(), from + LOOKUP_BATCH));
+            // Joining against the keys probes the unique index once per key; a row-value IN list
+            // is planned as separate per-column IN lists, which degrades to a range scan
+            String sql = "select r.id, r.origin, r.destination, r.departure_time, r.arrival_time, r.bus_operator, "
+                    + "r.bus_type, r.total_seats, r.price_per_seat, r.amenities "
+                    + "from (values " + String.join(", ", Collections.nCopies(batch.size(), "(?, ?, ?, cast(? as time))"))
+                    + ") k(bus_operator, origin, destination, departure_time) "
+                    + "join bus_routes r on r.bus_operator = k.bus_operator and r.origin = k.origin "
+                    + "and r.destination = k.destination and r.departure_time = k.departure_time";
+            Object[] args = new Object[batch.size() * 4];
+            int i = 0;
+            for (ImportedRoute.Key key : batch) {
+                args[i++] = key.busOperator();
+                args[i++] = key.origin();
+                args[i++] = key.destination();
+                args[i++] = key.departureTime();
+            }
+            jdbcTemplate.query(sql, rs -> {
+                ImportedRoute route = new ImportedRoute(0, rs.getString("origin"), rs.getString("destination"),
+                        rs.getObject("departure_time", LocalTime.class), rs.getObject("arrival_time", LocalTime.class),
+                        rs.getString("bus_operator"), rs.getString("bus_type"), rs.getInt("total_seats"),
+                        rs.getObject("price_per_seat", BigDecimal.class), rs.getString("amenities"));
+                existing.put(route.key(), new Existing(rs.getLong("id"), route));
+            }, args);
+        }
+        return existing;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /** Counts consumed bytes into the job so progress can be reported as a share of the file. */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final RouteImportJob job;
+
+        CountingInputStream(InputStream in, RouteImportJob job) {
+            super(in);
+            this.job = job;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                job.addBytesRead(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                job.addBytesRead(n);
+            }
+            return n;
+        }
+    }
+}
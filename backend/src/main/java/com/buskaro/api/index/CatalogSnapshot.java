@@ -0,0 +1,174 @@
+package com.buskaro.api.index;
+
+import com.buskaro.api.entity.BusRoute;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Immutable, pre-serialized city and operator lists. Route counts per name are maintained
+ * incrementally from {@link RouteChangedEvent}s, and the JSON and gzip bytes plus a strong
+ * ETag are only rebuilt when a name appears or disappears, so serving the lists never touches
+ * the database or the JSON serializer.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogSnapshot {
+    private final ObjectMapper objectMapper;
+    private final CityAutocomplete cityAutocomplete;
+
+    private final Map<Long, Names> namesByRoute = new HashMap<>();
+    private final Map<String, Integer> cityRoutes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<String, Integer> operatorRoutes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    private volatile Payload cities;
+    private volatile Payload operators;
+
+    /** Serialized JSON array with its gzip form and ETag. */
+    public record Payload(List<String> values, byte[] json, byte[] gzip, String etag) {
+        public String gzipEtag() {
+            return etag.substring(0, etag.length() - 1) + "-gz\"";
+        }
+    }
+
+    private record Names(String origin, String destination, String operator) {
+        static Names of(BusRoute route) {
+            return new Names(route.getOrigin(), route.getDestination(), route.getBusOperator());
+        }
+    }
+
+    public Payload cities() {
+        Payload payload = cities;
+        return payload != null ? payload : rebuildIfEmpty().cities;
+    }
+
+    public Payload operators() {
+        Payload payload = operators;
+        return payload != null ? payload : rebuildIfEmpty().operators;
+    }
+
+    public synchronized void rebuild(Collection<BusRoute> routes) {
+        namesByRoute.clear();
+        cityRoutes.clear();
+        operatorRoutes.clear();
+        routes.forEach(route -> add(route.getId(), Names.of(route)));
+        cityAutocomplete.rebuild(cityRoutes);
+        publish(true, true);
+    }
+
+    @EventListener
+    public synchronized void onRouteChanged(RouteChangedEvent event) {
+        Long id = event.route().getId();
+        Names previous = namesByRoute.get(id);
+        Names current = event.type() == RouteChangedEvent.Type.REMOVED ? null : Names.of(event.route());
+        // Most route writes (seat counts, prices) don't change any name
+        if (Objects.equals(previous, current)) {
+            return;
+        }
+        int cityCount = cityRoutes.size();
+        int operatorCount = operatorRoutes.size();
+        if (previous != null) {
+            remove(id, previous);
+        }
+        if (current != null) {
+            add(id, current);
+        }
+        refreshSuggestions(previous);
+        refreshSuggestions(current);
+        publish(cityCount != cityRoutes.size() || !sameCities(previous, current),
+                operatorCount != operatorRoutes.size() || !sameOperator(previous, current));
+    }
+
+    private synchronized CatalogSnapshot rebuildIfEmpty() {
+        if (cities == null || operators == null) {
+            publish(true, true);
+        }
+        return this;
+    }
+
+    private void add(Long id, Names names) {
+        namesByRoute.put(id, names);
+        increment(cityRoutes, names.origin(), 1);
+        if (!names.origin().equalsIgnoreCase(names.destination())) {
+            increment(cityRoutes, names.destination(), 1);
+        }
+        increment(operatorRoutes, names.operator(), 1);
+    }
+
+    private void remove(Long id, Names names) {
+        namesByRoute.remove(id);
+        increment(cityRoutes, names.origin(), -1);
+        if (!names.origin().equalsIgnoreCase(names.destination())) {
+            increment(cityRoutes, names.destination(), -1);
+        }
+        increment(operatorRoutes, names.operator(), -1);
+    }
+
+    private void refreshSuggestions(Names names) {
+        if (names != null) {
+            cityAutocomplete.update(names.origin(), cityRoutes.getOrDefault(names.origin(), 0));
+            cityAutocomplete.update(names.destination(), cityRoutes.getOrDefault(names.destination(), 0));
+        }
+    }
+
+    private static void increment(Map<String, Integer> counts, String name, int delta) {
+        if (name == null) {
+            return;
+        }
+        counts.merge(name, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private static boolean sameCities(Names a, Names b) {
+        return a != null && b != null
+                && a.origin().equalsIgnoreCase(b.origin())
+                && a.destination().equalsIgnoreCase(b.destination());
+    }
+
+    private static boolean sameOperator(Names a, Names b) {
+        return a != null && b != null && Objects.equals(a.operator(), b.operator());
+    }
+
+    private void publish(boolean citiesChanged, boolean operatorsChanged) {
+        if (citiesChanged || cities == null) {
+            cities = serialize(List.copyOf(cityRoutes.keySet()));
+        }
+        if (operatorsChanged || operators == null) {
+            operators = serialize(List.copyOf(operatorRoutes.keySet()));
+        }
+    }
+
+    private Payload serialize(List<String> values) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(values);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 2 + 32);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(json);
+            }
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            String etag = "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+            return new Payload(values, json, compressed.toByteArray(), etag);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize catalog", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.buskaro.api.index;
+
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * City name suggestions ranked by route count. Prefix lookups walk a persistent trie whose nodes
+ * cache the top cities of their subtree, so a lookup is a walk of the query length. Typos fall
+ * back to trigram candidates verified by a prefix edit distance. Writers path-copy the trie and
+ * swap the root, so readers never lock.
+ */
+@Component
+public class CityAutocomplete {
+    private static final int TOP_K = 20;
+    private static final Comparator<Suggestion> BY_RANK = Comparator
+            .comparingInt(Suggestion::distance)
+            .thenComparing(Comparator.comparingInt(Suggestion::routes).reversed())
+            .thenComparing(Suggestion::city);
+
+    private volatile Node root = Node.EMPTY;
+    private final Map<String, Set<String>> keysByTrigram = new ConcurrentHashMap<>();
+
+    /** A matching city; distance is 0 for prefix matches and the edit distance for typo matches. */
+    public record Suggestion(String city, int routes, int distance) {
+    }
+
+    private record Node(char[] labels, Node[] children, String city, int routes, Suggestion[] top) {
+        static final Node EMPTY = new Node(new char[0], new Node[0], null, 0, new Suggestion[0]);
+
+        Node child(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            return i >= 0 ? children[i] : null;
+        }
+
+        boolean isEmpty() {
+            return city == null && labels.length == 0;
+        }
+    }
+
+    public List<Suggestion> suggest(String query, int limit) {
+        String key = normalize(query);
+        if (key.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        Node trie = root;
+        Node node = find(trie, key);
+        Map<String, Suggestion> results = new HashMap<>();
+        if (node != null) {
+            for (Suggestion suggestion : node.top()) {
+                results.putIfAbsent(suggestion.city(), suggestion);
+            }
+        }
+        if (results.size() < limit) {
+            fuzzyMatches(trie, key, results);
+        }
+        return results.values().stream()
+                .sorted(BY_RANK)
+                .limit(limit)
+                .toList();
+    }
+
+    /** Sets the route count for a city; a count of zero removes it. */
+    public synchronized void update(String city, int routes) {
+        String key = normalize(city);
+        if (key.isEmpty()) {
+            return;
+        }
+        Node existing = find(root, key);
+        boolean present = existing != null && existing.city() != null;
+        // Keep the first spelling seen for a key, as the catalog does
+        String display = present ? existing.city() : city.trim();
+        Node updated = with(root, key, 0, routes > 0 ? display : null, Math.max(routes, 0));
+        root = updated == null ? Node.EMPTY : updated;
+        if (routes > 0 && !present) {
+            trigrams(key).forEach(gram -> keysByTrigram.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(key));
+        } else if (routes <= 0 && present) {
+            trigrams(key).forEach(gram -> keysByTrigram.computeIfPresent(gram, (g, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            }));
+        }
+    }
+
+    public synchronized void rebuild(Map<String, Integer> routesByCity) {
+        root = Node.EMPTY;
+        keysByTrigram.clear();
+        routesByCity.forEach(this::update);
+    }
+
+    private static Node find(Node node, String key) {
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node;
+    }
+
+    private static Node with(Node node, String key, int depth, String city, int routes) {
+        if (node == null) {
+            node = Node.EMPTY;
+        }
+        char[] labels = node.labels();
+        Node[] children = node.children();
+        String ownCity = node.city();
+        int ownRoutes = node.routes();
+        if (depth == key.length()) {
+            ownCity = city;
+            ownRoutes = city == null ? 0 : routes;
+        } else {
+            char label = key.charAt(depth);
+            int i = Arrays.binarySearch(labels, label);
+            Node child = with(i >= 0 ? children[i] : null, key, depth + 1, city, routes);
+            if (i >= 0 && child == null) {
+                labels = remove(labels, i);
+                children = remove(children, i);
+            } else if (i >= 0) {
+                children = children.clone();
+                children[i] = child;
+            } else if (child != null) {
+                int at = -i - 1;
+                labels = insert(labels, at, label);
+                children = insert(children, at, child);
+            }
+        }
+        Node updated = new Node(labels, children, ownCity, ownRoutes, top(ownCity, ownRoutes, children));
+        return updated.isEmpty() ? null : updated;
+    }
+
+    private static Suggestion[] top(String city, int routes, Node[] children) {
+        List<Suggestion> candidates = new ArrayList<>();
+        if (city != null) {
+            candidates.add(new Suggestion(city, routes, 0));
+        }
+        for (Node child : children) {
+            candidates.addAll(Arrays.asList(child.top()));
+        }
+        candidates.sort(BY_RANK);
+        return candidates.subList(0, Math.min(TOP_K, candidates.size())).toArray(Suggestion[]::new);
+    }
+
+    private void fuzzyMatches(Node trie, String key, Map<String, Suggestion> results) {
+        int maxDistance = key.length() < 3 ? 0 : key.length() < 5 ? 1 : 2;
+        if (maxDistance == 0) {
+            return;
+        }
+        Set<String> candidates = new LinkedHashSet<>();
+        for (String gram : trigrams(key)) {
+            Set<String> keys = keysByTrigram.get(gram);
+            if (keys != null) {
+                candidates.addAll(keys);
+            }
+        }
+        for (String candidate : candidates) {
+            int distance = prefixDistance(key, candidate, maxDistance);
+            if (distance <= maxDistance) {
+                Node node = find(trie, candidate);
+                if (node != null && node.city() != null) {
+                    results.putIfAbsent(node.city(), new Suggestion(node.city(), node.routes(), Math.max(distance, 1)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Smallest Damerau-Levenshtein distance between the query and any prefix of the candidate,
+     * so a partially typed, misspelt name still matches. Gives up early once every cell in a
+     * row exceeds the limit.
+     */
+    static int prefixDistance(String query, String candidate, int limit) {
+        int n = candidate.length();
+        int[] previous = new int[n + 1];
+        int[] current = new int[n + 1];
+        int[] beforePrevious = new int[n + 1];
+        for (int j = 0; j <= n; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= query.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= n; j++) {
+                int cost = query.charAt(i - 1) == candidate.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && query.charAt(i - 1) == candidate.charAt(j - 2)
+                        && query.charAt(i - 2) == candidate.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        int best = Integer.MAX_VALUE;
+        for (int value : previous) {
+            best = Math.min(best, value);
+        }
+        return best;
+    }
+
+    private static List<String> trigrams(String key) {
+        String padded = "$$" + key;
+        List<String> grams = new ArrayList<>(key.length());
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String stripped = Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return stripped.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{Nd}]+", " ").trim();
+    }
+
+    private static char[] insert(char[] array, int at, char value) {
+        char[] copy = new char[array.length + 1];
+        System.arraycopy(array, 0, copy, 0, at);
+        copy[at] = value;
+        System.arraycopy(array, at, copy, at + 1, array.length - at);
+        return copy;
+    }
+
+    private static Node[] insert(Node[] array, int at, Node value) {
+        Node[] copy = new Node[array.length + 1];
+        System.arraycopy(array, 0, copy, 0, at);
+        copy[at] = value;
+        System.arraycopy(array, at, copy, at + 1, array.length - at);
+        return copy;
+    }
+
+    private static char[] remove(char[] array, int at) {
+        char[] copy = new char[array.length - 1];
+        System.arraycopy(array, 0, copy, 0, at);
+        System.arraycopy(array, at + 1, copy, at, array.length - at - 1);
+        return copy;
+    }
+
+    private static Node[] remove(Node[] array, int at) {
+        Node[] copy = new Node[array.length - 1];
+        System.arraycopy(array, 0, copy, 0, at);
+        System.arraycopy(array, at + 1, copy, at, array.length - at - 1);
+        return copy;
+    }
+}
@@ -0,0 +1,283 @@
+package com.buskaro.api.index;
+
+import com.buskaro.api.entity.BusRoute;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Multi-leg journey planner using the Connection Scan Algorithm. Every {@link BusRoute} runs
+ * daily, so it is expanded into one connection per day of the search horizon and all
+ * connections are kept in flat arrays sorted by departure minute. A query is a single forward
+ * scan that tracks the earliest arrival per city for each number of legs, which yields the
+ * Pareto set of "earliest arrival" vs "fewest transfers" journeys.
+ *
+ * <p>The timetable is rebuilt from {@link RouteIndex} on a background thread after a route
+ * change, and in place after a catalog reload. Searches keep reading the previous immutable
+ * timetable until the new one is swapped in, so neither writes nor queries wait for a rebuild.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConnectionSearch {
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int HORIZON_DAYS = 3;
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private final RouteIndex routeIndex;
+
+    // Orders rebuilds so a slower one that read the index earlier can't replace a newer timetable
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "connection-timetable");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Empty until the catalog is first loaded
+    private volatile Timetable timetable = Timetable.build(List.of());
+
+    public record Leg(BusRoute route, int departureMinute, int arrivalMinute) {}
+
+    public record Journey(List<Leg> legs) {
+        public int departureMinute() {
+            return legs.get(0).departureMinute();
+        }
+
+        public int arrivalMinute() {
+            return legs.get(legs.size() - 1).arrivalMinute();
+        }
+
+        public int transfers() {
+            return legs.size() - 1;
+        }
+    }
+
+    /**
+     * Returns journeys from {@code origin} to {@code destination} leaving at or after
+     * {@code departAfterMinute} (minutes since midnight of day 0), ordered by number of legs.
+     * Each journey arrives strictly earlier than every journey with fewer legs.
+     */
+    public List<Journey> search(String origin, String destination, int departAfterMinute,
+                                int minLayoverMinutes, int maxLegs) {
+        Timetable table = timetable;
+        Integer from = table.cityIds.get(RouteIndex.normalize(origin));
+        Integer to = table.cityIds.get(RouteIndex.normalize(destination));
+        if (from == null || to == null || from.equals(to) || maxLegs < 1) {
+            return List.of();
+        }
+
+        int cities = table.cityIds.size();
+        int[][] arrival = new int[maxLegs + 1][cities];
+        int[][] via = new int[maxLegs + 1][cities];
+        for (int k = 0; k <= maxLegs; k++) {
+            Arrays.fill(arrival[k], UNREACHED);
+        }
+        arrival[0][from] = departAfterMinute;
+
+        for (int c = table.firstDepartingAtOrAfter(departAfterMinute); c < table.size; c++) {
+            int departs = table.departure[c];
+            // Anything leaving after the best direct arrival can't beat it, so no new journey qualifies
+            if (departs >= arrival[1][to] && arrival[1][to] != UNREACHED) {
+                break;
+            }
+            int stop = table.fromCity[c];
+            for (int k = maxLegs; k >= 1; k--) {
+                int reached = arrival[k - 1][stop];
+                if (reached == UNREACHED) {
+                    continue;
+                }
+                int ready = k == 1 ? reached : reached + minLayoverMinutes;
+                if (ready <= departs && table.arrival[c] < arrival[k][table.toCity[c]]) {
+                    arrival[k][table.toCity[c]] = table.arrival[c];
+                    via[k][table.toCity[c]] = c;
+                }
+            }
+        }
+
+        List<Journey> journeys = new ArrayList<>();
+        int best = UNREACHED;
+        for (int k = 1; k <= maxLegs; k++) {
+            if (arrival[k][to] < best) {
+                best = arrival[k][to];
+                journeys.add(table.reconstruct(via, k, to, routeIndex));
+            }
+        }
+        return journeys;
+    }
+
+    /**
+     * Rebuilds the timetable on the calling thread, for catalog changes made without route
+     * events; searches meanwhile keep using the previous one.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            timetable = Timetable.build(routeIndex.all());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Runs after {@link RouteIndex#onRouteChanged} has applied the change, so a rebuild this
+     * triggers can't read the index from before it and then count as current.
+     */
+    @EventListener
+    @Order
+    public void onRouteChanged(RouteChangedEvent event) {
+        // Seat count updates are frequent and don't change the timetable
+        if (event.type() == RouteChangedEvent.Type.REMOVED || !timetable.schedules(event.route())) {
+            requestRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    private void requestRebuild() {
+        // Changes that arrive while a rebuild is queued are folded into it; one that arrives after
+        // it has started queues another, since the running one may have read the index too early
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("Connection timetable rebuild failed; keeping the previous one until the next route change", e);
+                }
+            });
+        }
+    }
+
+    /** Flat, immutable connection arrays sorted by departure minute. */
+    private static final class Timetable {
+        private final Map<String, Integer> cityIds;
+        private final Map<Long, BusRoute> routesById;
+        private final BusRoute[] routes;
+        private final int size;
+        private final int[] fromCity;
+        private final int[] toCity;
+        private final int[] departure;
+        private final int[] arrival;
+        private final int[] route;
+
+        private Timetable(Map<String, Integer> cityIds, BusRoute[] routes, int size) {
+            this.cityIds = cityIds;
+            this.routes = routes;
+            this.routesById = new HashMap<>(routes.length * 4 / 3 + 1);
+            for (BusRoute busRoute : routes) {
+                routesById.put(busRoute.getId(), busRoute);
+            }
+            this.size = size;
+            this.fromCity = new int[size];
+            this.toCity = new int[size];
+            this.departure = new int[size];
+            this.arrival = new int[size];
+            this.route = new int[size];
+        }
+
+        static Timetable build(Collection<BusRoute> catalog) {
+            Map<String, Integer> cityIds = new HashMap<>();
+            List<BusRoute> usable = new ArrayList<>(catalog.size());
+            List<int[]> times = new ArrayList<>(catalog.size());
+            for (BusRoute busRoute : catalog) {
+                int departs = minuteOfDay(busRoute.getDepartureTime());
+                int arrives = minuteOfDay(busRoute.getArrivalTime());
+                if (departs < 0 || arrives < 0) {
+                    continue;
+                }
+                if (arrives <= departs) {
+                    arrives += MINUTES_PER_DAY; // overnight service
+                }
+                cityIds.putIfAbsent(RouteIndex.normalize(busRoute.getOrigin()), cityIds.size());
+                cityIds.putIfAbsent(RouteIndex.normalize(busRoute.getDestination()), cityIds.size());
+                usable.add(busRoute);
+                times.add(new int[]{departs, arrives});
+            }
+
+            long[] order = new long[usable.size() * HORIZON_DAYS];
+            int n = 0;
+            for (int day = 0; day < HORIZON_DAYS; day++) {
+                for (int r = 0; r < usable.size(); r++) {
+                    long departs = times.get(r)[0] + (long) day * MINUTES_PER_DAY;
+                    // Pack (departure, day, route) so one primitive sort orders the connections
+                    order[n++] = (departs << 32) | ((long) day << 24) | r;
+                }
+            }
+            Arrays.sort(order);
+
+            Timetable table = new Timetable(Map.copyOf(cityIds), usable.toArray(new BusRoute[0]), n);
+            for (int c = 0; c < n; c++) {
+                int r = (int) (order[c] & 0xFFFFFF);
+                int day = (int) ((order[c] >>> 24) & 0xFF);
+                BusRoute busRoute = table.routes[r];
+                table.route[c] = r;
+                table.fromCity[c] = cityIds.get(RouteIndex.normalize(busRoute.getOrigin()));
+                table.toCity[c] = cityIds.get(RouteIndex.normalize(busRoute.getDestination()));
+                table.departure[c] = times.get(r)[0] + day * MINUTES_PER_DAY;
+                table.arrival[c] = times.get(r)[1] + day * MINUTES_PER_DAY;
+            }
+            return table;
+        }
+
+        int firstDepartingAtOrAfter(int minute) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (departure[mid] < minute) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        boolean schedules(BusRoute candidate) {
+            BusRoute known = routesById.get(candidate.getId());
+            return known != null
+                    && Objects.equals(known.getOrigin(), candidate.getOrigin())
+                    && Objects.equals(known.getDestination(), candidate.getDestination())
+                    && Objects.equals(known.getDepartureTime(), candidate.getDepartureTime())
+                    && Objects.equals(known.getArrivalTime(), candidate.getArrivalTime());
+        }
+
+        Journey reconstruct(int[][] via, int legs, int destination, RouteIndex routeIndex) {
+            Leg[] path = new Leg[legs];
+            int stop = destination;
+            for (int k = legs; k >= 1; k--) {
+                int c = via[k][stop];
+                BusRoute scheduled = routes[route[c]];
+                // Prefer the live index entry so seat counts in results are current
+                BusRoute current = routeIndex.get(scheduled.getId());
+                path[k - 1] = new Leg(current != null ? current : scheduled, departure[c], arrival[c]);
+                stop = fromCity[c];
+            }
+            return new Journey(List.of(path));
+        }
+
+        private static int minuteOfDay(LocalTime time) {
+            return time == null ? -1 : time.getHour() * 60 + time.getMinute();
+        }
+    }
+}
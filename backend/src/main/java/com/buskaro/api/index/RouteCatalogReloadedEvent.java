@@ -0,0 +1,8 @@
+package com.buskaro.api.index;
+
+/**
+ * Published after the in-memory route indexes have been reloaded from the database, at
+ * startup and after bulk imports, which write rows without per-route events.
+ */
+public record RouteCatalogReloadedEvent(int routes) {
+}
@@ -0,0 +1,46 @@
+package com.buskaro.api.index;
+
+import com.buskaro.api.entity.BusRoute;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA callback for {@link BusRoute} that turns every persisted write into a
+ * {@link RouteChangedEvent}. Events are deferred until the surrounding transaction commits so
+ * in-memory indexes never see rows that were rolled back.
+ */
+@Component
+@RequiredArgsConstructor
+public class RouteChangeListener {
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(BusRoute route) {
+        publishAfterCommit(new RouteChangedEvent(RouteChangedEvent.Type.SAVED, route.snapshot()));
+    }
+
+    @PostRemove
+    public void onRemoved(BusRoute route) {
+        publishAfterCommit(new RouteChangedEvent(RouteChangedEvent.Type.REMOVED, route.snapshot()));
+    }
+
+    private void publishAfterCommit(RouteChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventPublisher.publishEvent(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eventPublisher.publishEvent(event);
+            }
+        });
+    }
+}
@@ -0,0 +1,14 @@
+package com.buskaro.api.index;
+
+import com.buskaro.api.entity.BusRoute;
+
+/**
+ * Published after a {@link BusRoute} write has been committed. {@code route} is a detached
+ * snapshot of the row as written; for removals it is the last known state.
+ */
+public record RouteChangedEvent(Type type, BusRoute route) {
+    public enum Type {
+        SAVED,
+        REMOVED
+    }
+}
@@ -0,0 +1,199 @@
+package com.buskaro.api.index;
+
+import com.buskaro.api.entity.BusRoute;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory index of every {@link BusRoute}, keyed by case-folded (origin, destination).
+ * Each bucket is an immutable list sorted by departure time, replaced wholesale on write, so
+ * lookups are a single hash probe with no locking and never touch the database.
+ */
+@Component
+public class RouteIndex {
+    private static final Comparator<BusRoute> BY_DEPARTURE = Comparator
+            .comparing(BusRoute::getDepartureTime, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(BusRoute::getId);
+
+    // A lock rather than a monitor: a rebuild of a large catalog can take a while, and virtual
+    // threads waiting on a monitor would pin their carriers for the duration
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Map<Long, BusRoute> routesById = new ConcurrentHashMap<>();
+    private volatile Map<String, List<BusRoute>> routesByPair = new ConcurrentHashMap<>();
+
+    public List<BusRoute> find(String origin, String destination) {
+        if (origin == null || destination == null) {
+            return List.of();
+        }
+        return routesByPair.getOrDefault(key(origin, destination), List.of());
+    }
+
+    /**
+     * Routes between two cities departing within [{@code departAfter}, {@code departBefore}],
+     * found by binary search over the departure-sorted bucket. Either bound may be null.
+     */
+    public List<BusRoute> find(String origin, String destination, LocalTime departAfter, LocalTime departBefore) {
+        List<BusRoute> bucket = find(origin, destination);
+        if (bucket.isEmpty() || (departAfter == null && departBefore == null)) {
+            return bucket;
+        }
+        int from = departAfter == null ? 0 : firstDepartingAtOrAfter(bucket, departAfter);
+        int to = departBefore == null ? bucket.size() : firstDepartingAfter(bucket, departBefore);
+        return from < to ? bucket.subList(from, to) : List.of();
+    }
+
+    /**
+     * The part of {@link #find(String, String, LocalTime, LocalTime)} that sorts strictly after the
+     * keyset position ({@code departureTime}, {@code id}); a null id means from the start.
+     */
+    public List<BusRoute> findAfter(String origin, String destination, LocalTime departAfter, LocalTime departBefore,
+                                    LocalTime cursorDeparture, Long cursorId) {
+        List<BusRoute> window = find(origin, destination, departAfter, departBefore);
+        if (cursorId == null || window.isEmpty()) {
+            return window;
+        }
+        BusRoute position = new BusRoute();
+        position.setDepartureTime(cursorDeparture);
+        position.setId(cursorId);
+        int found = Collections.binarySearch(window, position, BY_DEPARTURE);
+        int from = found >= 0 ? found + 1 : -found - 1;
+        return window.subList(from, window.size());
+    }
+
+    public BusRoute get(Long id) {
+        return routesById.get(id);
+    }
+
+    public Collection<BusRoute> all() {
+        return Collections.unmodifiableCollection(routesById.values());
+    }
+
+    public int size() {
+        return routesById.size();
+    }
+
+    public void put(BusRoute route) {
+        writeLock.lock();
+        try {
+            BusRoute previous = routesById.put(route.getId(), route);
+            if (previous != null) {
+                removeFromBucket(previous);
+            }
+            routesByPair.compute(key(route.getOrigin(), route.getDestination()), (k, bucket) -> {
+                List<BusRoute> updated = bucket == null ? new ArrayList<>(1) : new ArrayList<>(bucket);
+                updated.add(route);
+                updated.sort(BY_DEPARTURE);
+                return List.copyOf(updated);
+            });
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        writeLock.lock();
+        try {
+            BusRoute previous = routesById.remove(id);
+            if (previous != null) {
+                removeFromBucket(previous);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void rebuild(Collection<BusRoute> routes) {
+        writeLock.lock();
+        try {
+            Map<Long, BusRoute> byId = new ConcurrentHashMap<>(Math.max(16, routes.size() * 4 / 3));
+            Map<String, List<BusRoute>> buckets = new HashMap<>();
+            for (BusRoute route : routes) {
+                byId.put(route.getId(), route);
+                buckets.computeIfAbsent(key(route.getOrigin(), route.getDestination()), k -> new ArrayList<>())
+                        .add(route);
+            }
+            Map<String, List<BusRoute>> byPair = new ConcurrentHashMap<>(Math.max(16, buckets.size() * 4 / 3));
+            buckets.forEach((k, bucket) -> {
+                bucket.sort(BY_DEPARTURE);
+                byPair.put(k, List.copyOf(bucket));
+            });
+            // Swap both maps at once so concurrent readers never observe a half-built index
+            routesById = byId;
+            routesByPair = byPair;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // First, so listeners that rebuild from the index, like ConnectionSearch, see the change
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onRouteChanged(RouteChangedEvent event) {
+        if (event.type() == RouteChangedEvent.Type.REMOVED) {
+            remove(event.route().getId());
+        } else {
+            put(event.route());
+        }
+    }
+
+    private void removeFromBucket(BusRoute route) {
+        routesByPair.computeIfPresent(key(route.getOrigin(), route.getDestination()), (k, bucket) -> {
+            List<BusRoute> updated = bucket.stream()
+                    .filter(existing -> !existing.getId().equals(route.getId()))
+                    .toList();
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    private static int firstDepartingAtOrAfter(List<BusRoute> bucket, LocalTime time) {
+        int lo = 0;
+        int hi = bucket.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            LocalTime departs = bucket.get(mid).getDepartureTime();
+            if (departs != null && departs.isBefore(time)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int firstDepartingAfter(List<BusRoute> bucket, LocalTime time) {
+        int lo = 0;
+        int hi = bucket.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            LocalTime departs = bucket.get(mid).getDepartureTime();
+            if (departs != null && !departs.isAfter(time)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    static String key(String origin, String destination) {
+        return normalize(origin) + '\u0000' + normalize(destination);
+    }
+
+    static String normalize(String city) {
+        return city == null ? "" : city.trim().toLowerCase(Locale.ROOT);
+    }
+}
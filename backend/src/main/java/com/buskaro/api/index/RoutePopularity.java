@@ -0,0 +1,292 @@
+package com.buskaro.api.index;
+
+import com.buskaro.api.entity.BusRoute;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Route popularity from real demand. Bookings and search hits are queued by the request threads
+ * and drained by the scheduler into a {@link SpaceSaving} summary with exponential time decay,
+ * which then publishes an immutable top list; reads never touch the summary or the database.
+ *
+ * <p>Decay uses a forward landmark: an event at time {@code t} is weighted by
+ * {@code exp((t - landmark) / tau)}, so older counters never need updating. When the weights
+ * grow large, every counter is rescaled and the landmark moves to now. The summary is written
+ * to {@code popularity.snapshot-path} periodically and on shutdown, and read back on startup.
+ * Counters are keyed by route id, so the snapshot also records the highest route id and each
+ * counted route's origin, destination and operator; a snapshot from a recreated database is
+ * ignored, and counters whose id now names a different route are dropped.
+ */
+@Slf4j
+@Component
+public class RoutePopularity {
+    private static final int SNAPSHOT_FORMAT = 2;
+    private static final double MAX_EXPONENT = 50;
+
+    private final RouteIndex routeIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final SpaceSaving summary;
+    private final BlockingQueue<Hit> pending;
+    private final LongAdder dropped = new LongAdder();
+    // Guards the summary; snapshots do file I/O while holding it, which a monitor would pin
+    private final ReentrantLock lock = new ReentrantLock();
+    private final double tauMillis;
+    private final double bookingWeight;
+    private final double searchWeight;
+    private final int topSize;
+    private final Path snapshotPath;
+
+    private long landmarkMillis = System.currentTimeMillis();
+    private volatile List<Long> topRouteIds = List.of();
+
+    private record Hit(long routeId, double weight, long timestampMillis) {
+    }
+
+    public RoutePopularity(RouteIndex routeIndex,
+                           JdbcTemplate jdbcTemplate,
+                           @Value("${popularity.capacity:1000}") int capacity,
+                           @Value("${popularity.queue-capacity:65536}") int queueCapacity,
+                           @Value("${popularity.half-life:PT24H}") Duration halfLife,
+                           @Value("${popularity.booking-weight:10}") double bookingWeight,
+                           @Value("${popularity.search-weight:1}") double searchWeight,
+                           @Value("${popularity.top-size:20}") int topSize,
+                           @Value("${popularity.snapshot-path:data/popularity.snapshot}") Path snapshotPath) {
+        this.routeIndex = routeIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.summary = new SpaceSaving(capacity);
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        this.tauMillis = halfLife.toMillis() / Math.log(2);
+        this.bookingWeight = bookingWeight;
+        this.searchWeight = searchWeight;
+        this.topSize = topSize;
+        this.snapshotPath = snapshotPath;
+    }
+
+    /** Counts booked seats on a route once the booking transaction commits. */
+    public void recordBookingAfterCommit(Long routeId, int seats) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(routeId, bookingWeight * seats);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(routeId, bookingWeight * seats);
+            }
+        });
+    }
+
+    public void recordSearchHits(Collection<BusRoute> routes) {
+        for (BusRoute route : routes) {
+            record(route.getId(), searchWeight);
+        }
+    }
+
+    /**
+     * The most popular routes that still exist, most popular first. Routes with no demand yet
+     * are filled in from the catalog so the list is never short.
+     */
+    public List<BusRoute> top(int limit) {
+        Set<BusRoute> routes = new LinkedHashSet<>();
+        for (Long routeId : topRouteIds) {
+            if (routes.size() == limit) {
+                return List.copyOf(routes);
+            }
+            BusRoute route = routeIndex.get(routeId);
+            if (route != null) {
+                routes.add(route);
+            }
+        }
+        for (BusRoute route : routeIndex.all()) {
+            if (routes.size() == limit) {
+                break;
+            }
+            routes.add(route);
+        }
+        return List.copyOf(routes);
+    }
+
+    private void record(Long routeId, double weight) {
+        if (routeId == null || weight <= 0) {
+            return;
+        }
+        // Under overload popularity is sampled rather than slowing requests down
+        if (!pending.offer(new Hit(routeId, weight, System.currentTimeMillis()))) {
+            dropped.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${popularity.publish-interval-ms:1000}")
+    public void publish() {
+        lock.lock();
+        try {
+            List<Hit> hits = new ArrayList<>(pending.size());
+            pending.drainTo(hits);
+            for (Hit hit : hits) {
+                double exponent = (hit.timestampMillis() - landmarkMillis) / tauMillis;
+                if (exponent > MAX_EXPONENT) {
+                    summary.scale(Math.exp(-exponent));
+                    landmarkMillis = hit.timestampMillis();
+                    exponent = 0;
+                }
+                summary.offer(hit.routeId(), hit.weight() * Math.exp(exponent));
+            }
+            long lost = dropped.sumThenReset();
+            if (lost > 0) {
+                log.warn("Dropped {} popularity events; the queue was full", lost);
+            }
+            if (!hits.isEmpty() || topRouteIds.isEmpty()) {
+                topRouteIds = summary.top(topSize).stream()
+                        .map(counter -> counter.item)
+                        .toList();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${popularity.snapshot-interval-ms:60000}",
+            initialDelayString = "${popularity.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        long maxRouteId = maxRouteId();
+        lock.lock();
+        try {
+            Path parent = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "popularity", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_FORMAT);
+                out.writeLong(landmarkMillis);
+                out.writeDouble(tauMillis);
+                out.writeLong(maxRouteId);
+                out.writeInt(summary.size());
+                for (SpaceSaving.Counter counter : summary.counters()) {
+                    out.writeLong(counter.item);
+                    out.writeInt(identity(routeIndex.get(counter.item)));
+                    out.writeDouble(counter.count);
+                    out.writeDouble(counter.error);
+                }
+            }
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write popularity snapshot to {}", snapshotPath, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PostConstruct
+    public void restore() {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_FORMAT) {
+                log.warn("Ignoring popularity snapshot {} with an unknown format", snapshotPath);
+                return;
+            }
+            long landmark = in.readLong();
+            // A changed half-life reinterprets the old weights; they decay at the new rate from here
+            in.readDouble();
+            if (in.readLong() > maxRouteId()) {
+                // The usual case with the in-memory database, which starts empty on every run
+                log.info("Ignoring popularity snapshot {}; it counts routes the database doesn't have, "
+                        + "so the database was recreated", snapshotPath);
+                return;
+            }
+            int size = in.readInt();
+            long[] routeIds = new long[size];
+            int[] identities = new int[size];
+            double[] counts = new double[size];
+            double[] errors = new double[size];
+            for (int i = 0; i < size; i++) {
+                routeIds[i] = in.readLong();
+                identities[i] = in.readInt();
+                counts[i] = in.readDouble();
+                errors[i] = in.readDouble();
+            }
+            Map<Long, Integer> current = identities(routeIds);
+            summary.clear();
+            int restored = 0;
+            for (int i = 0; i < size; i++) {
+                if (Objects.equals(current.get(routeIds[i]), identities[i])) {
+                    summary.restore(routeIds[i], counts[i], errors[i]);
+                    restored++;
+                }
+            }
+            landmarkMillis = landmark;
+            topRouteIds = summary.top(topSize).stream()
+                    .map(counter -> counter.item)
+                    .toList();
+            log.info("Restored {} of {} popularity counters from {}", restored, size, snapshotPath);
+        } catch (IOException e) {
+            summary.clear();
+            log.warn("Failed to read popularity snapshot {}; starting empty", snapshotPath, e);
+        }
+    }
+
+    private long maxRouteId() {
+        Long max = jdbcTemplate.queryForObject("select max(id) from bus_routes", Long.class);
+        return max == null ? 0 : max;
+    }
+
+    /** What each route id names in the database now, as {@link #identity(BusRoute)} would. */
+    private Map<Long, Integer> identities(long[] routeIds) {
+        if (routeIds.length == 0) {
+            return Map.of();
+        }
+        Map<Long, Integer> identities = new HashMap<>(routeIds.length * 2);
+        jdbcTemplate.query("select id, origin, destination, bus_operator from bus_routes where id in ("
+                        + String.join(",", Collections.nCopies(routeIds.length, "?")) + ")",
+                rs -> {
+                    identities.put(rs.getLong(1), identity(rs.getString(2), rs.getString(3), rs.getString(4)));
+                },
+                Arrays.stream(routeIds).boxed().toArray());
+        return identities;
+    }
+
+    private static int identity(BusRoute route) {
+        return route == null ? 0 : identity(route.getOrigin(), route.getDestination(), route.getBusOperator());
+    }
+
+    private static int identity(String origin, String destination, String busOperator) {
+        return Objects.hash(origin, destination, busOperator);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publish();
+        snapshot();
+    }
+}
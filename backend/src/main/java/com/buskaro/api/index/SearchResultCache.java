@@ -0,0 +1,110 @@
+package com.buskaro.api.index;
+
+import com.buskaro.api.entity.BusRoute;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-evicting cache of search result pages. A page is the filtered, cursor-positioned
+ * slice of a city pair's routes; it doesn't depend on the travel date or on seat counts, which
+ * callers overlay from the trip inventory on every read, so bookings never invalidate it.
+ *
+ * <p>Each entry remembers the {@link RouteIndex} bucket it was computed from. Buckets are
+ * replaced on every write, so an entry read after its pair changed is recomputed even if the
+ * {@link RouteChangedEvent} that evicts it hasn't been handled yet. Hit rate and load time are
+ * published under {@code cache=searchResults}, and {@code search.cache.saved} adds up the load
+ * time of every page served from the cache.
+ */
+@Component
+public class SearchResultCache {
+    private final RouteIndex routeIndex;
+    private final Cache<Key, Entry> pages;
+    private final ConcurrentStatsCounter stats = new ConcurrentStatsCounter();
+    private final Counter saved;
+
+    public record Page(List<BusRoute> routes, String nextCursor) {
+    }
+
+    private record Key(String pair, LocalTime departAfter, LocalTime departBefore, BigDecimal maxPrice,
+                       String after, int size) {
+    }
+
+    private record Entry(List<BusRoute> bucket, Page page, long loadNanos) {
+    }
+
+    public SearchResultCache(RouteIndex routeIndex,
+                             MeterRegistry meterRegistry,
+                             @Value("${search.cache.max-size:10000}") long maxSize,
+                             @Value("${search.cache.ttl:PT60S}") Duration ttl) {
+        this.routeIndex = routeIndex;
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats(() -> stats)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "searchResults");
+        this.saved = Counter.builder("search.cache.saved")
+                .description("Search time avoided by serving pages from the cache")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /** The cached page for these search parameters, computed by {@code loader} on a miss. */
+    public Page get(String from, String to, LocalTime departAfter, LocalTime departBefore, BigDecimal maxPrice,
+                    String after, int size, Supplier<Page> loader) {
+        Key key = new Key(RouteIndex.key(from, to), departAfter, departBefore,
+                maxPrice == null ? null : maxPrice.stripTrailingZeros(), after, size);
+        // Read the bucket first: a write that lands during the load leaves a stale entry behind
+        // the new bucket, which the next read then ignores
+        List<BusRoute> bucket = routeIndex.find(from, to);
+        Entry cached = pages.policy().getIfPresentQuietly(key);
+        if (cached != null && cached.bucket() == bucket) {
+            stats.recordHits(1);
+            saved.increment(cached.loadNanos() / 1e9);
+            return cached.page();
+        }
+        stats.recordMisses(1);
+        long started = System.nanoTime();
+        Page page;
+        try {
+            page = loader.get();
+        } catch (RuntimeException e) {
+            stats.recordLoadFailure(System.nanoTime() - started);
+            throw e;
+        }
+        long loadNanos = System.nanoTime() - started;
+        stats.recordLoadSuccess(loadNanos);
+        pages.put(key, new Entry(bucket, page, loadNanos));
+        return page;
+    }
+
+    /**
+     * Drops pages of the route's new city pair and any page that listed it, which covers the
+     * pair it moved away from.
+     */
+    @EventListener
+    public void onRouteChanged(RouteChangedEvent event) {
+        BusRoute route = event.route();
+        String pair = RouteIndex.key(route.getOrigin(), route.getDestination());
+        pages.asMap().entrySet().removeIf(cached -> cached.getKey().pair().equals(pair)
+                || cached.getValue().page().routes().stream().anyMatch(listed -> listed.getId().equals(route.getId())));
+    }
+
+    @EventListener
+    public void onCatalogReloaded(RouteCatalogReloadedEvent event) {
+        pages.invalidateAll();
+    }
+}
@@ -0,0 +1,111 @@
+package com.buskaro.api.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Weighted Space-Saving heavy-hitters summary over a fixed number of counters. An untracked item
+ * takes over the smallest counter and inherits its count as error, so any item whose true weight
+ * exceeds total / capacity is guaranteed to be tracked. Not thread-safe.
+ */
+final class SpaceSaving {
+    private static final Comparator<Counter> BY_COUNT = Comparator
+            .comparingDouble((Counter c) -> c.count)
+            .thenComparingLong(c -> c.item);
+
+    private final int capacity;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private TreeSet<Counter> byCount = new TreeSet<>(BY_COUNT);
+
+    static final class Counter {
+        final long item;
+        double count;
+        double error;
+
+        private Counter(long item, double count, double error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    void offer(long item, double weight) {
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count += weight;
+            byCount.add(counter);
+            return;
+        }
+        if (counters.size() < capacity) {
+            restore(item, weight, 0);
+            return;
+        }
+        Counter smallest = byCount.pollFirst();
+        counters.remove(smallest.item);
+        restore(item, smallest.count + weight, smallest.count);
+    }
+
+    /** Sets an item's counter directly, evicting the smallest one if the summary is full. */
+    void restore(long item, double count, double error) {
+        if (!counters.containsKey(item) && counters.size() >= capacity) {
+            if (byCount.first().count >= count) {
+                return;
+            }
+            counters.remove(byCount.pollFirst().item);
+        }
+        Counter counter = new Counter(item, count, error);
+        Counter previous = counters.put(item, counter);
+        if (previous != null) {
+            byCount.remove(previous);
+        }
+        byCount.add(counter);
+    }
+
+    /** Items with the largest counts, largest first. */
+    List<Counter> top(int k) {
+        List<Counter> top = new ArrayList<>(Math.min(k, counters.size()));
+        Iterator<Counter> descending = byCount.descendingIterator();
+        while (top.size() < k && descending.hasNext()) {
+            top.add(descending.next());
+        }
+        return top;
+    }
+
+    /** Multiplies every count by the same factor, e.g. to renormalise decayed weights. */
+    void scale(double factor) {
+        TreeSet<Counter> rescaled = new TreeSet<>(BY_COUNT);
+        for (Counter counter : counters.values()) {
+            counter.count *= factor;
+            counter.error *= factor;
+            rescaled.add(counter);
+        }
+        byCount = rescaled;
+    }
+
+    void clear() {
+        counters.clear();
+        byCount.clear();
+    }
+
+    Collection<Counter> counters() {
+        return counters.values();
+    }
+
+    int size() {
+        return counters.size();
+    }
+}
@@ -0,0 +1,259 @@
+package com.buskaro.api.inventory;
+
+import com.buskaro.api.exception.BusinessException;
+import com.buskaro.api.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+
+/**
+ * Pushes live seat counts to clients over Server-Sent Events. Clients subscribe to the routes
+ * or trips they are showing; {@link SeatInventory} reports every change, and once per
+ * {@code availability.push-interval-ms} the latest count of each changed trip goes out as one
+ * {@code seats} event per subscriber, however many bookings, cancellations or expired holds
+ * happened in between.
+ *
+ * <p>An idle subscription is an async request and a few map entries, not a thread. Events are
+ * written by a small sender pool; a subscriber is drained by at most one sender at a time and
+ * changes keep coalescing while it is being written to, so a slow client costs a bounded
+ * backlog and never holds up the others.
+ */
+@Slf4j
+@Component
+public class SeatAvailabilityBroadcaster {
+    private static final String EVENT_NAME = "seats";
+    private static final long RETRY_AFTER_SECONDS = 30;
+    private static final long RECONNECT_MILLIS = 5000;
+
+    public record SeatCount(long tripId, long routeId, int seatsAvailable) {
+    }
+
+    private record Change(long routeId, IntSupplier seatsAvailable) {
+    }
+
+    private final Map<Long, Change> changed = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Subscriber>> byTrip = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Subscriber>> byRoute = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender;
+    private final Duration subscriberTimeout;
+    private final int maxIdsPerSubscriber;
+    private final int maxSubscribers;
+    private final Counter eventsSent;
+    private final Counter subscribersDropped;
+
+    public SeatAvailabilityBroadcaster(MeterRegistry meterRegistry,
+                                       @Value("${availability.sender-threads:0}") int senderThreads,
+                                       @Value("${availability.subscriber-timeout:PT30M}") Duration subscriberTimeout,
+                                       @Value("${availability.max-ids-per-subscriber:200}") int maxIdsPerSubscriber,
+                                       @Value("${availability.max-subscribers:50000}") int maxSubscribers) {
+        int threads = senderThreads > 0 ? senderThreads : Runtime.getRuntime().availableProcessors();
+        this.sender = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "seat-availability-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.subscriberTimeout = subscriberTimeout;
+        this.maxIdsPerSubscriber = maxIdsPerSubscriber;
+        this.maxSubscribers = maxSubscribers;
+        this.eventsSent = Counter.builder("seat.availability.events")
+                .description("Seat count events written to subscribers")
+                .register(meterRegistry);
+        this.subscribersDropped = Counter.builder("seat.availability.dropped")
+                .description("Subscribers dropped after a failed write")
+                .register(meterRegistry);
+        Gauge.builder("seat.availability.subscribers", subscribers, Set::size)
+                .description("Open seat availability subscriptions")
+                .register(meterRegistry);
+    }
+
+    /** Opens a subscription to the seat counts of the given routes (any date) and trips. */
+    public SseEmitter subscribe(Collection<Long> routeIds, Collection<Long> tripIds) {
+        Set<Long> routes = new HashSet<>(routeIds);
+        Set<Long> trips = new HashSet<>(tripIds);
+        if (routes.isEmpty() && trips.isEmpty()) {
+            throw new BusinessException("Subscribe to at least one routeId or tripId");
+        }
+        if (routes.size() + trips.size() > maxIdsPerSubscriber) {
+            throw new BusinessException("At most " + maxIdsPerSubscriber + " routes and trips per subscription");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceUnavailableException("Too many live subscriptions", RETRY_AFTER_SECONDS);
+        }
+        Subscriber subscriber = new Subscriber(new SseEmitter(subscriberTimeout.toMillis()), routes, trips);
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(error -> unsubscribe(subscriber));
+        subscribers.add(subscriber);
+        routes.forEach(routeId -> attach(byRoute, routeId, subscriber));
+        trips.forEach(tripId -> attach(byTrip, tripId, subscriber));
+        try {
+            // Commits the response headers right away, and spreads reconnects out after a restart
+            subscriber.emitter.send(SseEmitter.event()
+                    .reconnectTime(RECONNECT_MILLIS + ThreadLocalRandom.current().nextLong(RECONNECT_MILLIS))
+                    .comment("subscribed"));
+        } catch (IOException e) {
+            unsubscribe(subscriber);
+            throw new UncheckedIOException(e);
+        }
+        return subscriber.emitter;
+    }
+
+    /**
+     * Called on every seat change. The count is read when the change is pushed rather than
+     * now, so racing changes to a trip can't leave an older count to be sent last.
+     */
+    void changed(long tripId, long routeId, IntSupplier seatsAvailable) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        changed.put(tripId, new Change(routeId, seatsAvailable));
+    }
+
+    @Scheduled(fixedDelayString = "${availability.push-interval-ms:1000}")
+    public void push() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        Set<Subscriber> touched = new HashSet<>();
+        for (Long tripId : changed.keySet()) {
+            Change change = changed.remove(tripId);
+            if (change == null) {
+                continue;
+            }
+            SeatCount count = new SeatCount(tripId, change.routeId(), change.seatsAvailable().getAsInt());
+            offer(byTrip.get(count.tripId()), count, touched);
+            offer(byRoute.get(count.routeId()), count, touched);
+        }
+        touched.forEach(this::drainLater);
+    }
+
+    /** Comments keep proxies from closing idle streams and find clients that went away. */
+    @Scheduled(fixedDelayString = "${availability.heartbeat-interval-ms:20000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue = true;
+            drainLater(subscriber);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        sender.shutdownNow();
+    }
+
+    private static void offer(Set<Subscriber> interested, SeatCount count, Set<Subscriber> touched) {
+        if (interested == null) {
+            return;
+        }
+        for (Subscriber subscriber : interested) {
+            subscriber.pending.put(count.tripId(), count);
+            touched.add(subscriber);
+        }
+    }
+
+    private void drainLater(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            // The sender already on it picks up whatever was just added
+            return;
+        }
+        try {
+            sender.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.draining.set(false);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            try {
+                List<SeatCount> counts = new ArrayList<>(subscriber.pending.size());
+                for (Long tripId : subscriber.pending.keySet()) {
+                    SeatCount count = subscriber.pending.remove(tripId);
+                    if (count != null) {
+                        counts.add(count);
+                    }
+                }
+                if (!counts.isEmpty()) {
+                    subscriber.emitter.send(SseEmitter.event().name(EVENT_NAME).data(counts, MediaType.APPLICATION_JSON));
+                    eventsSent.increment();
+                } else if (subscriber.heartbeatDue) {
+                    subscriber.emitter.send(SseEmitter.event().comment("keepalive"));
+                }
+                subscriber.heartbeatDue = false;
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping seat availability subscriber", e);
+                subscribersDropped.increment();
+                unsubscribe(subscriber);
+                subscriber.emitter.completeWithError(e);
+                return;
+            } finally {
+                subscriber.draining.set(false);
+            }
+        } while (!subscriber.pending.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        subscriber.routeIds.forEach(routeId -> detach(byRoute, routeId, subscriber));
+        subscriber.tripIds.forEach(tripId -> detach(byTrip, tripId, subscriber));
+    }
+
+    private static void attach(Map<Long, Set<Subscriber>> index, Long id, Subscriber subscriber) {
+        index.compute(id, (key, interested) -> {
+            Set<Subscriber> updated = interested != null ? interested : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        });
+    }
+
+    private static void detach(Map<Long, Set<Subscriber>> index, Long id, Subscriber subscriber) {
+        index.computeIfPresent(id, (key, interested) -> {
+            interested.remove(subscriber);
+            return interested.isEmpty() ? null : interested;
+        });
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<Long> routeIds;
+        private final Set<Long> tripIds;
+        // Latest count per trip not yet written, so a backlog never outgrows the subscription
+        private final Map<Long, SeatCount> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+
+        private Subscriber(SseEmitter emitter, Set<Long> routeIds, Set<Long> tripIds) {
+            this.emitter = emitter;
+            this.routeIds = routeIds;
+            this.tripIds = tripIds;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.buskaro.api.inventory;
+
+import com.buskaro.api.entity.CartItem;
+import com.buskaro.api.ledger.BookingLedger;
+import com.buskaro.api.ledger.LedgerEvent;
+import com.buskaro.api.repository.CartItemRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time-limited seat holds for cart items. Adding to the cart reserves seats in
+ * {@link SeatInventory}; the hold's expiry lives in a {@link HashedWheelTimer}, and when it
+ * fires the seats go back into inventory and the abandoned cart item is deleted.
+ *
+ * <p>Checkout and expiry race on the timeout's state: whichever of {@code cancel()} or expiry
+ * wins owns the seats, so they are never released twice or booked after being released.
+ */
+@Slf4j
+@Component
+public class SeatHolds {
+    private static final int RESTORE_PAGE_SIZE = 500;
+
+    private final SeatInventory seatInventory;
+    private final CartItemRepository cartItemRepository;
+    private final BookingLedger bookingLedger;
+    private final Duration holdTtl;
+    private final ExecutorService expiryExecutor;
+    private final HashedWheelTimer timer;
+    private final Map<Long, HashedWheelTimer.Timeout> holds = new ConcurrentHashMap<>();
+
+    public SeatHolds(SeatInventory seatInventory,
+                     CartItemRepository cartItemRepository,
+                     BookingLedger bookingLedger,
+                     @Value("${cart.hold-ttl:PT10M}") Duration holdTtl) {
+        this.seatInventory = seatInventory;
+        this.cartItemRepository = cartItemRepository;
+        this.bookingLedger = bookingLedger;
+        this.holdTtl = holdTtl;
+        this.expiryExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "seat-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer = new HashedWheelTimer("seat-hold-timer", 1, TimeUnit.SECONDS, 512, expiryExecutor);
+    }
+
+    public LocalDateTime newExpiry() {
+        return LocalDateTime.now().plus(holdTtl);
+    }
+
+    /** Starts the expiry clock for a saved cart item once the current transaction commits. */
+    public void holdAfterCommit(CartItem cartItem) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            schedule(cartItem);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                schedule(cartItem);
+            }
+        });
+    }
+
+    /**
+     * Takes over the seats held for {@code cartItem} so they can be booked. If the hold has
+     * already expired (or was lost on restart) the seats are reserved again.
+     *
+     * <p>If the current transaction rolls back, a taken-over hold is put back with its original
+     * deadline, seats still reserved, so the cart item stays held and still expires. Seats that
+     * were reserved again are released; the expiry that ended the hold deletes the cart item.
+     */
+    public int[] claim(CartItem cartItem) {
+        HashedWheelTimer.Timeout timeout = holds.remove(cartItem.getId());
+        if (timeout != null && timeout.cancel()) {
+            afterRollback(() -> schedule(cartItem));
+            return SeatInventory.parseSeatNumbers(cartItem.getSeatNumbers());
+        }
+        int[] seats = seatInventory.reserve(cartItem.getTripId(), cartItem.getSeats());
+        seatInventory.releaseOnRollback(cartItem.getTripId(), seats);
+        return seats;
+    }
+
+    /** Gives a cart item's held seats back once the current transaction commits. */
+    public void releaseAfterCommit(CartItem cartItem) {
+        HashedWheelTimer.Timeout timeout = holds.get(cartItem.getId());
+        if (timeout == null) {
+            return;
+        }
+        Runnable release = () -> {
+            if (holds.remove(cartItem.getId(), timeout) && timeout.cancel()) {
+                seatInventory.release(cartItem.getTripId(), SeatInventory.parseSeatNumbers(cartItem.getSeatNumbers()));
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release.run();
+            }
+        });
+    }
+
+    public int activeHolds() {
+        return timer.pendingTimeouts();
+    }
+
+    /**
+     * Holds only live in memory, so on startup expired cart items are purged and the seats of
+     * the remaining ones are claimed again with their original deadlines. Open holds come from
+     * the ledger; only unexpired cart items older than it are read from the database, a page
+     * at a time.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void restoreHolds() {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = cartItemRepository.deleteAllByHoldExpiresAtBefore(now);
+        int restored = 0;
+        long coveredFrom = bookingLedger.coveredCartItemsFrom();
+        long after = 0;
+        List<CartItem> page;
+        do {
+            page = cartItemRepository.findByIdGreaterThanAndIdLessThanAndHoldExpiresAtAfterOrderByIdAsc(
+                    after, coveredFrom, now, Limit.of(RESTORE_PAGE_SIZE));
+            for (CartItem cartItem : page) {
+                if (restore(cartItem)) {
+                    restored++;
+                }
+                after = cartItem.getId();
+            }
+        } while (page.size() == RESTORE_PAGE_SIZE);
+        for (CartItem held : bookingLedger.openHolds()) {
+            if (held.getHoldExpiresAt().isBefore(now)) {
+                // Purged above by the bulk delete, which the ledger doesn't see
+                bookingLedger.record(LedgerEvent.holdReleased(held));
+            } else if (restore(held)) {
+                restored++;
+            }
+        }
+        log.info("Restored {} seat holds, purged {} expired cart items", restored, purged);
+    }
+
+    private boolean restore(CartItem cartItem) {
+        int[] seats = SeatInventory.parseSeatNumbers(cartItem.getSeatNumbers());
+        if (cartItem.getTripId() != null && seatInventory.claim(cartItem.getTripId(), seats)) {
+            schedule(cartItem);
+            return true;
+        }
+        cartItemRepository.deleteById(cartItem.getId());
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.stop();
+        expiryExecutor.shutdownNow();
+    }
+
+    private static void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private void schedule(CartItem cartItem) {
+        Long cartItemId = cartItem.getId();
+        Long tripId = cartItem.getTripId();
+        int[] seats = SeatInventory.parseSeatNumbers(cartItem.getSeatNumbers());
+        long delayMillis = Math.max(0, Duration.between(LocalDateTime.now(), cartItem.getHoldExpiresAt()).toMillis());
+        holds.put(cartItemId, timer.schedule(() -> expire(cartItemId, tripId, seats), delayMillis, TimeUnit.MILLISECONDS));
+    }
+
+    private void expire(Long cartItemId, Long tripId, int[] seats) {
+        holds.remove(cartItemId);
+        seatInventory.release(tripId, seats);
+        try {
+            cartItemRepository.deleteById(cartItemId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete expired cart item {}", cartItemId, e);
+        }
+        log.debug("Seat hold for cart item {} expired", cartItemId);
+    }
+}
@@ -0,0 +1,215 @@
+package com.buskaro.api.inventory;
+
+import com.buskaro.api.entity.Booking;
+import com.buskaro.api.entity.BookingStatus;
+import com.buskaro.api.entity.Trip;
+import com.buskaro.api.exception.BusinessException;
+import com.buskaro.api.exception.ResourceNotFoundException;
+import com.buskaro.api.ledger.BookingLedger;
+import com.buskaro.api.repository.BookingRepository;
+import com.buskaro.api.repository.TripRepository;
+import com.buskaro.api.trip.TripCalendar;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Authoritative seat inventory, one {@link SeatMap} per trip. Maps are loaded lazily from the
+ * trip capacity plus the seats held by confirmed bookings, taken from the {@link BookingLedger}
+ * where it covers the trip, and reservations never touch the database. The derived {@code seatsAvailable} column is written behind on a schedule using
+ * the trip's optimistic version, so a hot trip costs one row update per flush rather than
+ * one per booking.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeatInventory {
+    private final TripRepository tripRepository;
+    private final BookingRepository bookingRepository;
+    private final TripCalendar tripCalendar;
+    private final BookingLedger bookingLedger;
+    private final SeatAvailabilityBroadcaster seatAvailability;
+
+    private final Map<Long, SeatMap> seatMaps = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyTrips = ConcurrentHashMap.newKeySet();
+
+    public int[] reserve(Long tripId, int count) {
+        SeatMap seatMap = seatMap(tripId);
+        if (count < 1 || count > seatMap.capacity()) {
+            throw new BusinessException("Invalid number of seats: " + count);
+        }
+        int[] seats = seatMap.reserve(count);
+        if (seats == null) {
+            throw new BusinessException("Not enough seats available", HttpStatus.CONFLICT);
+        }
+        changed(tripId, seatMap);
+        return seats;
+    }
+
+    public void release(Long tripId, int[] seats) {
+        if (seats.length == 0) {
+            return;
+        }
+        SeatMap seatMap = seatMap(tripId);
+        seatMap.release(seats);
+        changed(tripId, seatMap);
+    }
+
+    /** Marks specific seats as taken, all or nothing; used to restore holds after a restart. */
+    public boolean claim(Long tripId, int[] seats) {
+        SeatMap seatMap = seatMap(tripId);
+        for (int i = 0; i < seats.length; i++) {
+            if (!seatMap.claim(seats[i])) {
+                seatMap.release(Arrays.copyOf(seats, i));
+                return false;
+            }
+        }
+        changed(tripId, seatMap);
+        return true;
+    }
+
+    public int available(Long tripId) {
+        return seatMap(tripId).available();
+    }
+
+    /** Live free seats if the trip's map is already in memory, otherwise {@code fallback}. */
+    public int availableIfLoaded(Long tripId, int fallback) {
+        SeatMap seatMap = seatMaps.get(tripId);
+        return seatMap != null ? seatMap.available() : fallback;
+    }
+
+    /** Drops the maps of trips that are over; any still waiting to be written back stay for now. */
+    public void evict(Collection<Long> tripIds) {
+        for (Long tripId : tripIds) {
+            if (!dirtyTrips.contains(tripId)) {
+                seatMaps.remove(tripId);
+            }
+        }
+    }
+
+    /** Gives the seats back if the current transaction rolls back. */
+    public void releaseOnRollback(Long tripId, int[] seats) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    release(tripId, seats);
+                }
+            }
+        });
+    }
+
+    /** Gives the seats back once the current transaction commits. */
+    public void releaseAfterCommit(Long tripId, int[] seats) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(tripId, seats);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(tripId, seats);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.sync-interval-ms:1000}")
+    public void syncToDatabase() {
+        for (Long tripId : dirtyTrips) {
+            dirtyTrips.remove(tripId);
+            SeatMap seatMap = seatMaps.get(tripId);
+            if (seatMap == null) {
+                continue;
+            }
+            try {
+                tripRepository.findById(tripId).ifPresent(trip -> {
+                    int available = seatMap.available();
+                    if (trip.getSeatsAvailable() == null || trip.getSeatsAvailable() != available) {
+                        trip.setSeatsAvailable(available);
+                        tripRepository.save(trip);
+                    }
+                    tripCalendar.updateSeats(trip.getTravelDate(), trip.getRouteId(), available);
+                });
+            } catch (ObjectOptimisticLockingFailureException e) {
+                // Someone else updated the trip row first; try again on the next tick
+                log.debug("Seat count sync for trip {} lost an optimistic lock race", tripId);
+                dirtyTrips.add(tripId);
+            }
+        }
+    }
+
+    private void changed(Long tripId, SeatMap seatMap) {
+        dirtyTrips.add(tripId);
+        seatAvailability.changed(tripId, seatMap.routeId(), seatMap::available);
+    }
+
+    private SeatMap seatMap(Long tripId) {
+        SeatMap seatMap = seatMaps.get(tripId);
+        if (seatMap != null) {
+            return seatMap;
+        }
+        // Loaded outside the map: computeIfAbsent would run the queries under a bin lock, which
+        // pins a virtual thread's carrier. Racing loaders read the same rows; the first one wins
+        SeatMap loaded = load(tripId);
+        SeatMap existing = seatMaps.putIfAbsent(tripId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private SeatMap load(Long tripId) {
+        Trip trip = tripRepository.findById(tripId)
+                .orElseThrow(() -> new ResourceNotFoundException("Trip not found"));
+        SeatMap seatMap = new SeatMap(trip.getRouteId(), trip.getTotalSeats());
+        int[] booked = bookingLedger.bookedSeats(tripId);
+        if (booked != null) {
+            for (int seat : booked) {
+                seatMap.claim(seat);
+            }
+            return seatMap;
+        }
+        for (Booking booking : bookingRepository.findByTripIdAndStatus(tripId, BookingStatus.CONFIRMED)) {
+            for (int seat : parseSeatNumbers(booking.getSeatNumbers())) {
+                if (!seatMap.claim(seat)) {
+                    log.warn("Booking {} holds seat {} on trip {} that is already taken", booking.getId(), seat, tripId);
+                }
+            }
+        }
+        return seatMap;
+    }
+
+    public static int parseCount(String seats) {
+        try {
+            return Integer.parseInt(seats.trim());
+        } catch (NullPointerException | NumberFormatException e) {
+            throw new BusinessException("Invalid number of seats: " + seats);
+        }
+    }
+
+    public static String formatSeatNumbers(int[] seats) {
+        return Arrays.stream(seats).sorted().mapToObj(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    public static int[] parseSeatNumbers(String seatNumbers) {
+        if (seatNumbers == null || seatNumbers.isBlank()) {
+            return new int[0];
+        }
+        return Arrays.stream(seatNumbers.split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+}
@@ -0,0 +1,103 @@
+package com.buskaro.api.inventory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free seat bitmap for one bus. A set bit means the seat is taken. Reservations first
+ * claim capacity from the {@code free} counter with a CAS, which is what prevents overselling,
+ * and then pick concrete seats by CAS-ing bits, starting at a random word so that concurrent
+ * reservers rarely collide on the same word.
+ */
+final class SeatMap {
+    private final long routeId;
+    private final int capacity;
+    private final AtomicLongArray taken;
+    private final AtomicInteger free;
+
+    SeatMap(long routeId, int capacity) {
+        this.routeId = routeId;
+        this.capacity = capacity;
+        this.taken = new AtomicLongArray((capacity + 63) >>> 6);
+        this.free = new AtomicInteger(capacity);
+    }
+
+    long routeId() {
+        return routeId;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int available() {
+        return free.get();
+    }
+
+    /** Returns the 1-based seat numbers reserved, or {@code null} if not enough seats are free. */
+    int[] reserve(int count) {
+        int current;
+        do {
+            current = free.get();
+            if (current < count) {
+                return null;
+            }
+        } while (!free.compareAndSet(current, current - count));
+
+        int[] seats = new int[count];
+        int claimed = 0;
+        int words = taken.length();
+        int word = ThreadLocalRandom.current().nextInt(words);
+        // Capacity is already ours, so a free bit is guaranteed to exist; keep scanning until found
+        while (claimed < count) {
+            long bits = taken.get(word);
+            long vacant = ~bits & validMask(word);
+            if (vacant == 0) {
+                word = word + 1 == words ? 0 : word + 1;
+                continue;
+            }
+            long bit = Long.lowestOneBit(vacant);
+            if (taken.compareAndSet(word, bits, bits | bit)) {
+                seats[claimed++] = (word << 6) + Long.numberOfTrailingZeros(bit) + 1;
+            }
+        }
+        return seats;
+    }
+
+    /** Marks specific seats as taken; used when replaying persisted bookings. */
+    boolean claim(int seat) {
+        if (seat < 1 || seat > capacity) {
+            return false;
+        }
+        int index = seat - 1;
+        long bit = 1L << (index & 63);
+        long before = taken.getAndAccumulate(index >>> 6, bit, (bits, mask) -> bits | mask);
+        if ((before & bit) != 0) {
+            return false;
+        }
+        free.decrementAndGet();
+        return true;
+    }
+
+    void release(int[] seats) {
+        int released = 0;
+        for (int seat : seats) {
+            if (seat < 1 || seat > capacity) {
+                continue;
+            }
+            int index = seat - 1;
+            long bit = 1L << (index & 63);
+            long before = taken.getAndAccumulate(index >>> 6, bit, (bits, mask) -> bits & ~mask);
+            if ((before & bit) != 0) {
+                released++;
+            }
+        }
+        free.addAndGet(released);
+    }
+
+    private long validMask(int word) {
+        int remaining = capacity - (word << 6);
+        return remaining >= 64 ? -1L : (1L << remaining) - 1;
+    }
+}
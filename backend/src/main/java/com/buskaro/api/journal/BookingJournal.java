@@ -0,0 +1,532 @@
+package com.buskaro.api.journal;
+
+import com.buskaro.api.entity.Booking;
+import com.buskaro.api.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead log for directly created bookings, enabled with {@code booking.journal.enabled}.
+ * A booking is confirmed once it is fsync'd to an append-only segment file rather than once a
+ * database transaction commits. A single writer thread takes every booking queued while the
+ * previous flush was running and writes them with one {@code force}, so concurrent bookings
+ * share the cost of a disk flush.
+ *
+ * <p>Durable entries are handed to an applier thread, which inserts them into {@code bookings}
+ * in batches with insert-if-absent statements, and segments are deleted once every entry in them
+ * is applied. On startup, before any request is served, the remaining segments are replayed the
+ * same way, so entries that were already applied are skipped. Booking ids are taken in blocks
+ * from {@code bookings_seq}, the way the entity's pooled generator takes them, so they never
+ * collide with bookings inserted through JPA. A journal that refers to trips the database doesn't
+ * have was written against a database that has since been recreated, and is discarded.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "booking.journal.enabled", havingValue = "true")
+public class BookingJournal {
+    private static final String INSERT = "insert into bookings (id, user_id, route_id, trip_id, travel_date, seats, "
+            + "seat_numbers, total_amount, booking_date, status) select ?, ?, ?, ?, ?, ?, ?, ?, ?, ? "
+            + "where not exists (select 1 from bookings where id = ?)";
+    // Matches the allocationSize of Booking.id
+    private static final int BOOKING_ID_BLOCK = 50;
+    private static final String SEGMENT_PREFIX = "bookings-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final long POLL_MILLIS = 100;
+    private static final long APPLY_RETRY_MILLIS = 1000;
+    private static final long APPLY_WAIT_MILLIS = 5000;
+    private static final long SHUTDOWN_WAIT_MILLIS = 10_000;
+    private static final long RETRY_AFTER_SECONDS = 5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+    private final long segmentBytes;
+    private final int maxGroup;
+    private final int applyBatch;
+    private final Timer flushTimer;
+    private final DistributionSummary groupSize;
+
+    private final BlockingQueue<Pending> pending = new LinkedBlockingQueue<>();
+    private final BlockingQueue<JournalEntry> durable = new LinkedBlockingQueue<>();
+    private final Queue<Segment> closedSegments = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock idLock = new ReentrantLock();
+    private final ReentrantLock appliedLock = new ReentrantLock();
+    private final Condition appliedAdvanced = appliedLock.newCondition();
+    private volatile long durableSequence;
+    private volatile long appliedSequence;
+    private volatile IOException failure;
+    private volatile boolean running = true;
+
+    // The current block of booking ids, guarded by idLock
+    private long nextBookingId;
+    private long lastBookingId = -1;
+
+    // Owned by the writer thread once it has started
+    private FileChannel channel;
+    private Path segmentPath;
+    private long nextSequence;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+
+    private Thread writer;
+    private Thread applier;
+
+    private record Pending(byte[] payload, Booking booking, CompletableFuture<Void> flushed) {
+    }
+
+    private record Segment(Path path, long lastSequence) {
+    }
+
+    public BookingJournal(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${booking.journal.dir:data/booking-journal}") Path directory,
+                          @Value("${booking.journal.segment-bytes:67108864}") long segmentBytes,
+                          @Value("${booking.journal.max-group:512}") int maxGroup,
+                          @Value("${booking.journal.apply-batch:500}") int applyBatch) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxGroup = Math.max(1, maxGroup);
+        this.applyBatch = Math.max(1, applyBatch);
+        this.flushTimer = Timer.builder("booking.journal.flush")
+                .description("Time to write and fsync one group of bookings")
+                .register(meterRegistry);
+        this.groupSize = DistributionSummary.builder("booking.journal.group.size")
+                .description("Bookings made durable by one fsync")
+                .register(meterRegistry);
+        Gauge.builder("booking.journal.apply.lag", this, journal -> journal.durableSequence - journal.appliedSequence)
+                .description("Confirmed bookings not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        recover();
+        openSegment();
+        writer = new Thread(this::writeLoop, "booking-journal-writer");
+        applier = new Thread(this::applyLoop, "booking-journal-applier");
+        writer.setDaemon(true);
+        applier.setDaemon(true);
+        writer.start();
+        applier.start();
+    }
+
+    /** Gives the booking its id ahead of {@link #append}, for callers that need it first. */
+    public void assignId(Booking booking) {
+        booking.setId(nextBookingId());
+    }
+
+    /**
+     * Assigns the booking its id, unless it has one, and returns once the booking is on disk.
+     * Throws a 503 if the journal can no longer write, in which case the booking was not recorded.
+     */
+    public Booking append(Booking booking) {
+        if (failure != null || !running) {
+            throw new ServiceUnavailableException("Bookings are temporarily unavailable", RETRY_AFTER_SECONDS);
+        }
+        if (booking.getId() == null) {
+            booking.setId(nextBookingId());
+        }
+        Pending entry = new Pending(JournalEntry.encode(booking), booking, new CompletableFuture<>());
+        pending.add(entry);
+        // Shutdown may have drained the queue for the last time already; an entry still in it
+        // would never be written, so take it back. If it's gone, the writer or shutdown owns it
+        if (!running && pending.remove(entry)) {
+            throw new ServiceUnavailableException("Bookings are temporarily unavailable", RETRY_AFTER_SECONDS);
+        }
+        try {
+            entry.flushed().join();
+        } catch (CompletionException e) {
+            throw new ServiceUnavailableException("Bookings are temporarily unavailable", RETRY_AFTER_SECONDS);
+        }
+        return booking;
+    }
+
+    /**
+     * Waits, for a few seconds at most, until every booking confirmed so far is in the database,
+     * so a read right after a booking sees it.
+     */
+    public void awaitApplied() {
+        long target = durableSequence;
+        if (appliedSequence >= target) {
+            return;
+        }
+        appliedLock.lock();
+        try {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(APPLY_WAIT_MILLIS);
+            while (appliedSequence < target && nanos > 0) {
+                nanos = appliedAdvanced.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            appliedLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        running = false;
+        join(writer);
+        join(applier);
+        Pending leftover;
+        while ((leftover = pending.poll()) != null) {
+            leftover.flushed().completeExceptionally(new IOException("Booking journal closed"));
+        }
+        if (channel != null) {
+            channel.close();
+            // Everything confirmed is in the database, so there is nothing to replay next time
+            if (!writer.isAlive() && !applier.isAlive() && appliedSequence == durableSequence) {
+                Files.deleteIfExists(segmentPath);
+                for (Segment closed : closedSegments) {
+                    Files.deleteIfExists(closed.path());
+                }
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(BookingJournal::isSegment).sorted().toList();
+        }
+        Long maxTripId = jdbcTemplate.queryForObject("select max(id) from trips", Long.class);
+        if (maxJournaledTripId(segments) > (maxTripId == null ? 0 : maxTripId)) {
+            // The usual case with the in-memory database, which starts empty on every run
+            log.warn("Discarding {} booking journal segments that refer to trips the database doesn't have; "
+                    + "the database was recreated since they were written", segments.size());
+            for (Path segment : segments) {
+                Files.delete(segment);
+            }
+            segments = List.of();
+        }
+        long lastSequence = 0;
+        long maxBookingId = 0;
+        int replayed = 0;
+        int inserted = 0;
+        List<Booking> batch = new ArrayList<>(applyBatch);
+        for (Path segment : segments) {
+            ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(segment));
+            JournalEntry entry;
+            while ((entry = JournalEntry.readFrame(contents)) != null) {
+                lastSequence = Math.max(lastSequence, entry.sequence());
+                maxBookingId = Math.max(maxBookingId, entry.booking().getId());
+                batch.add(entry.booking());
+                replayed++;
+                if (batch.size() == applyBatch) {
+                    inserted += insert(batch);
+                    batch.clear();
+                }
+            }
+            if (contents.hasRemaining()) {
+                // A crash mid-write leaves a partial last entry that was never confirmed
+                log.warn("Discarding {} unreadable bytes at the end of {}", contents.remaining(), segment.getFileName());
+            }
+        }
+        if (!batch.isEmpty()) {
+            inserted += insert(batch);
+        }
+        if (maxBookingId > 0) {
+            reserveBookingIdsAbove(maxBookingId);
+        }
+        for (Path segment : segments) {
+            Files.delete(segment);
+        }
+        nextSequence = lastSequence + 1;
+        durableSequence = lastSequence;
+        appliedSequence = lastSequence;
+        if (!segments.isEmpty()) {
+            log.info("Replayed {} journaled bookings from {} segments, {} were not yet in the database",
+                    replayed, segments.size(), inserted);
+        }
+    }
+
+    private static long maxJournaledTripId(List<Path> segments) throws IOException {
+        long maxTripId = 0;
+        for (Path segment : segments) {
+            ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(segment));
+            JournalEntry entry;
+            while ((entry = JournalEntry.readFrame(contents)) != null) {
+                maxTripId = Math.max(maxTripId, entry.booking().getTripId());
+            }
+        }
+        return maxTripId;
+    }
+
+    private void writeLoop() {
+        List<Pending> group = new ArrayList<>(maxGroup);
+        while (running || !pending.isEmpty()) {
+            Pending first;
+            try {
+                first = pending.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            // Everything that queued up during the previous flush goes out with this one
+            group.add(first);
+            pending.drainTo(group, maxGroup - 1);
+            write(group);
+            group.clear();
+        }
+    }
+
+    private void write(List<Pending> group) {
+        if (failure != null) {
+            group.forEach(entry -> entry.flushed().completeExceptionally(failure));
+            return;
+        }
+        long started = System.nanoTime();
+        long firstSequence = nextSequence;
+        long startPosition = -1;
+        try {
+            startPosition = channel.position();
+            fill(group, firstSequence);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            discardFailedWrite(startPosition, e);
+            group.forEach(entry -> entry.flushed().completeExceptionally(e));
+            return;
+        }
+        flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        groupSize.record(group.size());
+        nextSequence = firstSequence + group.size();
+        long sequence = firstSequence;
+        for (Pending entry : group) {
+            durable.add(new JournalEntry(sequence++, entry.booking()));
+        }
+        durableSequence = nextSequence - 1;
+        group.forEach(entry -> entry.flushed().complete(null));
+        try {
+            if (channel.position() >= segmentBytes) {
+                channel.close();
+                closedSegments.add(new Segment(segmentPath, nextSequence - 1));
+                openSegment();
+            }
+        } catch (IOException e) {
+            log.error("Could not start a new booking journal segment; journaled bookings are disabled", e);
+            failure = e;
+        }
+    }
+
+    private void fill(List<Pending> group, long firstSequence) {
+        int size = 0;
+        for (Pending entry : group) {
+            size += JournalEntry.HEADER_BYTES + entry.payload().length;
+        }
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(size) << 1);
+        }
+        buffer.clear();
+        long sequence = firstSequence;
+        for (Pending entry : group) {
+            JournalEntry.writeFrame(buffer, sequence++, entry.payload());
+        }
+        buffer.flip();
+    }
+
+    // Cuts a failed group back off the segment so it can't be replayed after its callers were
+    // told it failed; if even that fails, the journal stops accepting bookings
+    private void discardFailedWrite(long startPosition, IOException cause) {
+        log.error("Booking journal write failed", cause);
+        if (startPosition >= 0) {
+            try {
+                channel.truncate(startPosition);
+                channel.position(startPosition);
+                channel.force(false);
+                return;
+            } catch (IOException e) {
+                cause.addSuppressed(e);
+            }
+        }
+        log.error("Booking journal segment {} is in an unknown state; journaled bookings are disabled", segmentPath);
+        failure = cause;
+    }
+
+    private void applyLoop() {
+        List<JournalEntry> batch = new ArrayList<>(applyBatch);
+        while (running || !durable.isEmpty()) {
+            JournalEntry first;
+            try {
+                first = durable.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            durable.drainTo(batch, applyBatch - 1);
+            if (!applyUntilDone(batch)) {
+                // Shutting down with the database unavailable; the entries are replayed on restart
+                return;
+            }
+            markApplied(batch.get(batch.size() - 1).sequence());
+            batch.clear();
+        }
+    }
+
+    private boolean applyUntilDone(List<JournalEntry> batch) {
+        List<Booking> bookings = batch.stream().map(JournalEntry::booking).toList();
+        while (true) {
+            try {
+                insert(bookings);
+                return true;
+            } catch (RuntimeException e) {
+                log.warn("Applying {} journaled bookings failed; retrying", bookings.size(), e);
+            }
+            if (!running) {
+                return false;
+            }
+            try {
+                Thread.sleep(APPLY_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private void markApplied(long sequence) {
+        appliedSequence = sequence;
+        appliedLock.lock();
+        try {
+            appliedAdvanced.signalAll();
+        } finally {
+            appliedLock.unlock();
+        }
+        Segment segment;
+        while ((segment = closedSegments.peek()) != null && segment.lastSequence() <= sequence) {
+            closedSegments.poll();
+            try {
+                Files.deleteIfExists(segment.path());
+            } catch (IOException e) {
+                log.warn("Could not delete applied journal segment {}", segment.path(), e);
+            }
+        }
+    }
+
+    /** Inserts the bookings that aren't in the table yet and returns how many that was. */
+    private int insert(List<Booking> bookings) {
+        int[][] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT, bookings,
+                bookings.size(), (ps, booking) -> {
+                    ps.setLong(1, booking.getId());
+                    ps.setLong(2, booking.getUserId());
+                    ps.setLong(3, booking.getRouteId());
+                    ps.setLong(4, booking.getTripId());
+                    ps.setObject(5, booking.getTravelDate());
+                    ps.setInt(6, booking.getSeats());
+                    ps.setString(7, booking.getSeatNumbers());
+                    ps.setBigDecimal(8, booking.getTotalAmount());
+                    ps.setObject(9, booking.getBookingDate());
+                    ps.setString(10, booking.getStatus().name());
+                    ps.setLong(11, booking.getId());
+                }));
+        int inserted = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                if (count > 0) {
+                    inserted++;
+                }
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Hands out ids from blocks of {@link #BOOKING_ID_BLOCK}, one sequence value per block. As with
+     * the entity's pooled generator, a value {@code v} stands for the block ending at {@code v}, so
+     * JPA and the journal never get the same id.
+     */
+    private long nextBookingId() {
+        idLock.lock();
+        try {
+            while (nextBookingId > lastBookingId) {
+                Long value = jdbcTemplate.queryForObject("select next value for bookings_seq", Long.class);
+                // The pooled generator takes the initial value as id 1 alone; leave it to JPA
+                if (value != null && value >= BOOKING_ID_BLOCK) {
+                    lastBookingId = value;
+                    nextBookingId = value - BOOKING_ID_BLOCK + 1;
+                }
+            }
+            return nextBookingId++;
+        } finally {
+            idLock.unlock();
+        }
+    }
+
+    // Replayed ids were handed out by bookings_seq; make sure the sequence is past them before
+    // new bookings are made, whatever state it was left in
+    private void reserveBookingIdsAbove(long maxBookingId) {
+        Long next = jdbcTemplate.queryForObject("select next value for bookings_seq", Long.class);
+        if (next != null && next - BOOKING_ID_BLOCK < maxBookingId) {
+            jdbcTemplate.execute("alter sequence bookings_seq restart with " + (maxBookingId + BOOKING_ID_BLOCK));
+        }
+    }
+
+    private void openSegment() throws IOException {
+        segmentPath = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+        channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        // Make the new file's directory entry durable too, not just its contents
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            log.debug("Directory fsync is not supported here", e);
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static void join(Thread thread) {
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(SHUTDOWN_WAIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.buskaro.api.journal;
+
+import com.buskaro.api.entity.Booking;
+import com.buskaro.api.entity.BookingStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+/**
+ * One confirmed booking in the journal. On disk an entry is framed as
+ * {@code [int length][int crc][long sequence][payload]}, where the CRC covers the sequence and
+ * the payload, so a torn write at the end of a segment is detected and cut off on replay.
+ */
+record JournalEntry(long sequence, Booking booking) {
+    static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES;
+    static final int MAX_PAYLOAD_BYTES = 64 * 1024;
+    private static final byte FORMAT_VERSION = 1;
+
+    static byte[] encode(Booking booking) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(booking.getId());
+            out.writeLong(booking.getUserId());
+            out.writeLong(booking.getRouteId());
+            out.writeLong(booking.getTripId());
+            out.writeLong(booking.getTravelDate().toEpochDay());
+            out.writeInt(booking.getSeats());
+            out.writeUTF(booking.getSeatNumbers());
+            out.writeUTF(booking.getTotalAmount().toPlainString());
+            out.writeLong(booking.getBookingDate().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(booking.getBookingDate().getNano());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static void writeFrame(ByteBuffer buffer, long sequence, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+        crc.update(payload);
+        buffer.putInt(payload.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.putLong(sequence);
+        buffer.put(payload);
+    }
+
+    /**
+     * Reads the entry at the buffer's position, or returns null, leaving the position alone, if
+     * the bytes there are incomplete or fail the checksum.
+     */
+    static JournalEntry readFrame(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_BYTES) {
+            return null;
+        }
+        int length = buffer.getInt();
+        int expectedCrc = buffer.getInt();
+        long sequence = buffer.getLong();
+        if (length <= 0 || length > MAX_PAYLOAD_BYTES || buffer.remaining() < length) {
+            buffer.position(start);
+            return null;
+        }
+        byte[] payload = new byte[length];
+        buffer.get(payload);
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+        crc.update(payload);
+        if ((int) crc.getValue() != expectedCrc) {
+            buffer.position(start);
+            return null;
+        }
+        return new JournalEntry(sequence, decode(payload));
+    }
+
+    private static Booking decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported journal entry format " + version);
+            }
+            Booking booking = new Booking();
+            booking.setId(in.readLong());
+            booking.setUserId(in.readLong());
+            booking.setRouteId(in.readLong());
+            booking.setTripId(in.readLong());
+            booking.setTravelDate(LocalDate.ofEpochDay(in.readLong()));
+            booking.setSeats(in.readInt());
+            booking.setSeatNumbers(in.readUTF());
+            booking.setTotalAmount(new BigDecimal(in.readUTF()));
+            booking.setBookingDate(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC));
+            booking.setStatus(BookingStatus.CONFIRMED);
+            return booking;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package com.buskaro.api.ledger;
+
+import com.buskaro.api.entity.BookingStatus;
+import com.buskaro.api.entity.CartItem;
+import com.buskaro.api.inventory.SeatInventory;
+import com.buskaro.api.journal.BookingJournal;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only ledger of seat holds, bookings and cancellations, kept in memory-mapped segment
+ * files under {@code ledger.dir}, with the state folded from it: booked seats per trip and the
+ * open holds. {@link SeatInventory} and {@link com.buskaro.api.inventory.SeatHolds} start from
+ * that state instead of querying bookings per trip and scanning every cart item.
+ *
+ * <p>Events are appended before the write they describe commits and folded into the state only
+ * after it has, so every committed change is in the ledger. An event whose transaction rolled
+ * back, or was cut short by a crash, stays in the file; replay therefore checks the events it
+ * reads against the rows they refer to and keeps what the database says.
+ *
+ * <p>The state is snapshotted periodically and on shutdown together with the sequence number
+ * replay has to resume from, and older segments are deleted, so a restart reads one snapshot
+ * and a short tail. Segments are flushed to disk every {@code ledger.flush-interval-ms}; a
+ * process crash loses nothing, an operating system crash can lose the last interval.
+ */
+@Slf4j
+@Component
+public class BookingLedger {
+    private static final int SNAPSHOT_FORMAT = 2;
+    private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES;
+    private static final int LOOKUP_BATCH = 500;
+    private static final String SEGMENT_PREFIX = "ledger-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directory;
+    private final int segmentBytes;
+
+    // Guards the active segment and sequence numbers
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // Guards the folded state; snapshots serialize it while holding this
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private final ConcurrentSkipListSet<Long> unresolved = new ConcurrentSkipListSet<>();
+    private final List<Segment> closedSegments = new ArrayList<>();
+    private LedgerState state;
+    private MappedByteBuffer segment;
+    private Path segmentPath;
+    private long segmentFirstSequence;
+    private long nextSequence;
+
+    private record Segment(Path path, long lastSequence) {
+    }
+
+    private record Sequenced(long sequence, LedgerEvent event) {
+    }
+
+    private record Snapshot(LedgerState state, long resumeFrom) {
+    }
+
+    /**
+     * {@code bookingJournal} is only taken so that, when enabled, it replays into the database
+     * before this ledger checks its own tail against it.
+     */
+    public BookingLedger(JdbcTemplate jdbcTemplate,
+                         Optional<BookingJournal> bookingJournal,
+                         @Value("${ledger.dir:data/ledger}") Path directory,
+                         @Value("${ledger.segment-bytes:16777216}") int segmentBytes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Appends {@code event} now and folds it into the state once the current transaction
+     * commits, or straight away outside a transaction.
+     */
+    public void record(LedgerEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(event, false);
+            apply(event);
+            return;
+        }
+        long sequence = append(event, true);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    apply(event);
+                }
+                unresolved.remove(sequence);
+            }
+        });
+    }
+
+    /** Appends {@code event}, runs the write it describes, and folds the event in if that succeeded. */
+    public <T> T recordAround(LedgerEvent event, Supplier<T> write) {
+        long sequence = append(event, true);
+        try {
+            T result = write.get();
+            apply(event);
+            return result;
+        } finally {
+            unresolved.remove(sequence);
+        }
+    }
+
+    /** Booked seats of a trip, or null if the trip predates the ledger and must be read from bookings. */
+    public int[] bookedSeats(long tripId) {
+        stateLock.lock();
+        try {
+            return state.bookedSeats(tripId);
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /** The open holds as detached cart items carrying what a hold needs: trip, seats and expiry. */
+    public List<CartItem> openHolds() {
+        stateLock.lock();
+        try {
+            List<CartItem> cartItems = new ArrayList<>(state.holds().size());
+            for (LedgerState.Hold hold : state.holds()) {
+                CartItem cartItem = new CartItem();
+                cartItem.setId(hold.cartItemId());
+                cartItem.setTripId(hold.tripId());
+                cartItem.setSeats(hold.seats().length);
+                cartItem.setSeatNumbers(SeatInventory.formatSeatNumbers(hold.seats()));
+                cartItem.setHoldExpiresAt(hold.expiresAt());
+                cartItems.add(cartItem);
+            }
+            return cartItems;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /** Cart items with lower ids were created before the ledger and aren't among {@link #openHolds()}. */
+    public long coveredCartItemsFrom() {
+        stateLock.lock();
+        try {
+            return state.coveredCartItemsFrom();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    @PostConstruct
+    public void recover() throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+        long maxTripId = maxId("trips");
+        long maxCartItemId = maxId("cart_items");
+        Snapshot snapshot = readSnapshot();
+        List<Path> segments = listSegments();
+        if (snapshot != null && snapshot.state().maxTripId() > maxTripId) {
+            // The usual case with the in-memory database, which starts empty on every run
+            log.info("Ledger refers to trips the database doesn't have, so the database was recreated");
+            snapshot = null;
+        }
+        if (snapshot == null) {
+            state = new LedgerState(maxTripId + 1, maxCartItemId + 1);
+            nextSequence = 1;
+            log.info("Starting a new ledger covering trips from id {} and cart items from id {}",
+                    maxTripId + 1, maxCartItemId + 1);
+        } else {
+            state = snapshot.state();
+            List<Sequenced> tail = readTail(segments, snapshot.resumeFrom());
+            reconcile(tail);
+            nextSequence = tail.isEmpty() ? snapshot.resumeFrom() : tail.get(tail.size() - 1).sequence() + 1;
+            log.info("Ledger loaded {} trips and {} holds from its snapshot and replayed {} events in {} ms",
+                    state.trips(), state.holds().size(), tail.size(), (System.nanoTime() - started) / 1_000_000);
+        }
+        // Start from a fresh snapshot so the segments read above are no longer needed
+        writeSnapshot(nextSequence);
+        for (Path path : segments) {
+            Files.delete(path);
+        }
+        openSegment();
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.flush-interval-ms:1000}")
+    public void flush() {
+        appendLock.lock();
+        try {
+            segment.force();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the state and the sequence replay must resume from, then drops segments that lie
+     * wholly before it. Events still waiting on their transaction keep the resume point back.
+     */
+    @Scheduled(fixedDelayString = "${ledger.snapshot-interval-ms:60000}",
+            initialDelayString = "${ledger.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        long resumeFrom;
+        List<Segment> deletable = new ArrayList<>();
+        appendLock.lock();
+        try {
+            resumeFrom = unresolved.isEmpty() ? nextSequence : unresolved.first();
+            if (nextSequence > segmentFirstSequence) {
+                rollSegment();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to start a new ledger segment", e);
+            return;
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            writeSnapshot(resumeFrom);
+        } catch (IOException e) {
+            log.warn("Failed to write ledger snapshot", e);
+            return;
+        }
+        appendLock.lock();
+        try {
+            closedSegments.removeIf(closed -> closed.lastSequence() < resumeFrom && deletable.add(closed));
+        } finally {
+            appendLock.unlock();
+        }
+        for (Segment closed : deletable) {
+            try {
+                Files.deleteIfExists(closed.path());
+            } catch (IOException e) {
+                log.warn("Could not delete ledger segment {}", closed.path(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        snapshot();
+    }
+
+    private long append(LedgerEvent event, boolean pending) {
+        byte[] payload = event.encode();
+        CRC32C crc = new CRC32C();
+        appendLock.lock();
+        try {
+            if (segment.remaining() < HEADER_BYTES + payload.length) {
+                rollSegment();
+            }
+            long sequence = nextSequence++;
+            crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+            crc.update(payload);
+            segment.putInt(payload.length);
+            segment.putInt((int) crc.getValue());
+            segment.putLong(sequence);
+            segment.put(payload);
+            if (pending) {
+                // Registered under the lock so a snapshot never resumes past an event still in flight
+                unresolved.add(sequence);
+            }
+            return sequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to the booking ledger", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void apply(LedgerEvent event) {
+        stateLock.lock();
+        try {
+            state.apply(event);
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * Folds the replayed tail into the state as the database has it: a booking's seats are
+     * taken exactly when its row is confirmed, and a hold is open exactly when its cart item
+     * still exists. Releases go first so a seat that changed hands ends up with its last owner.
+     */
+    private void reconcile(List<Sequenced> tail) {
+        Map<Long, LedgerEvent> bookings = new HashMap<>();
+        Map<Long, LedgerEvent> holdsPlaced = new HashMap<>();
+        Set<Long> holdIds = new HashSet<>();
+        for (Sequenced sequenced : tail) {
+            LedgerEvent event = sequenced.event();
+            if (event.isBookingEvent()) {
+                bookings.put(event.id(), event);
+            } else {
+                holdIds.add(event.id());
+                if (event.type() == LedgerEvent.Type.HOLD_PLACED) {
+                    holdsPlaced.put(event.id(), event);
+                }
+            }
+        }
+        Set<Long> confirmed = findIds("select id from bookings where status = '" + BookingStatus.CONFIRMED + "' and id in ",
+                bookings.keySet());
+        Set<Long> openCartItems = findIds("select id from cart_items where id in ", holdIds);
+        bookings.forEach((id, event) -> {
+            if (!confirmed.contains(id)) {
+                state.unbook(event.tripId(), event.seats());
+            }
+        });
+        bookings.forEach((id, event) -> {
+            if (confirmed.contains(id)) {
+                state.book(event.tripId(), event.seats());
+            }
+        });
+        for (Long id : holdIds) {
+            LedgerEvent placed = holdsPlaced.get(id);
+            if (!openCartItems.contains(id)) {
+                state.removeHold(id);
+            } else if (placed != null) {
+                state.placeHold(placed);
+            }
+        }
+    }
+
+    private Set<Long> findIds(String query, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<Long> found = new HashSet<>();
+        List<Long> all = new ArrayList<>(ids);
+        for (int from = 0; from < all.size(); from += LOOKUP_BATCH) {
+            List<Long> batch = all.subList(from, Math.min(from + LOOKUP_BATCH, all.size()));
+            String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+            found.addAll(jdbcTemplate.queryForList(query + "(" + placeholders + ")", Long.class, batch.toArray()));
+        }
+        return found;
+    }
+
+    private List<Sequenced> readTail(List<Path> segments, long resumeFrom) throws IOException {
+        List<Sequenced> tail = new ArrayList<>();
+        for (Path path : segments) {
+            ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(path));
+            while (contents.remaining() >= HEADER_BYTES) {
+                int length = contents.getInt();
+                int expectedCrc = contents.getInt();
+                long sequence = contents.getLong();
+                // Segments are preallocated, so a zero length marks where writing stopped
+                if (length <= 0 || length > contents.remaining()) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                contents.get(payload);
+                CRC32C crc = new CRC32C();
+                crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+                crc.update(payload);
+                if ((int) crc.getValue() != expectedCrc) {
+                    log.warn("Ledger segment {} has a damaged entry at sequence {}; ignoring the rest of it",
+                            path.getFileName(), sequence);
+                    break;
+                }
+                if (sequence >= resumeFrom) {
+                    tail.add(new Sequenced(sequence, LedgerEvent.decode(payload)));
+                }
+            }
+        }
+        return tail;
+    }
+
+    private Snapshot readSnapshot() {
+        Path path = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_FORMAT) {
+                log.warn("Ignoring ledger snapshot {} with an unknown format", path);
+                return null;
+            }
+            long resumeFrom = in.readLong();
+            return new Snapshot(LedgerState.readFrom(in), resumeFrom);
+        } catch (IOException e) {
+            log.warn("Failed to read ledger snapshot {}; starting a new ledger", path, e);
+            return null;
+        }
+    }
+
+    private void writeSnapshot(long resumeFrom) throws IOException {
+        Path temp = Files.createTempFile(directory, "snapshot", ".tmp");
+        stateLock.lock();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            out.writeInt(SNAPSHOT_FORMAT);
+            out.writeLong(resumeFrom);
+            state.writeTo(out);
+            out.flush();
+            channel.force(true);
+        } finally {
+            stateLock.unlock();
+        }
+        Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void rollSegment() throws IOException {
+        segment.force();
+        closedSegments.add(new Segment(segmentPath, nextSequence - 1));
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        segmentFirstSequence = nextSequence;
+        segmentPath = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        return max == null ? 0 : max;
+    }
+}
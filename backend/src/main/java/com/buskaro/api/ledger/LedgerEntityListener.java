@@ -0,0 +1,48 @@
+package com.buskaro.api.ledger;
+
+import com.buskaro.api.entity.Booking;
+import com.buskaro.api.entity.BookingStatus;
+import com.buskaro.api.entity.CartItem;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA callback for {@link Booking} and {@link CartItem} that records every seat change in the
+ * {@link BookingLedger}. The ledger is looked up lazily since it depends on the data source
+ * that the entity manager, and so this listener, is created with. Bulk JPQL deletes skip
+ * callbacks, so their callers record the release themselves.
+ */
+@Component
+@RequiredArgsConstructor
+public class LedgerEntityListener {
+    private final ObjectProvider<BookingLedger> bookingLedger;
+
+    @PostPersist
+    public void onPersisted(Object entity) {
+        if (entity instanceof Booking booking && booking.getTripId() != null
+                && booking.getStatus() == BookingStatus.CONFIRMED) {
+            bookingLedger.getObject().record(LedgerEvent.booked(booking));
+        } else if (entity instanceof CartItem cartItem && cartItem.getTripId() != null) {
+            bookingLedger.getObject().record(LedgerEvent.holdPlaced(cartItem));
+        }
+    }
+
+    @PostUpdate
+    public void onUpdated(Object entity) {
+        if (entity instanceof Booking booking && booking.getTripId() != null
+                && booking.getStatus() == BookingStatus.CANCELLED) {
+            bookingLedger.getObject().record(LedgerEvent.cancelled(booking));
+        }
+    }
+
+    @PostRemove
+    public void onRemoved(Object entity) {
+        if (entity instanceof CartItem cartItem && cartItem.getTripId() != null) {
+            bookingLedger.getObject().record(LedgerEvent.holdReleased(cartItem));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.buskaro.api.ledger;
+
+import com.buskaro.api.entity.Booking;
+import com.buskaro.api.entity.CartItem;
+import com.buskaro.api.inventory.SeatInventory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * A seat state change on a trip. {@code id} is the cart item for hold events and the booking
+ * for booking events; {@code holdExpiresAt} is only set when a hold is placed.
+ */
+public record LedgerEvent(Type type, long id, long tripId, int[] seats, LocalDateTime holdExpiresAt) {
+    public enum Type {
+        HOLD_PLACED,
+        HOLD_RELEASED,
+        BOOKED,
+        CANCELLED
+    }
+
+    public static LedgerEvent holdPlaced(CartItem cartItem) {
+        return new LedgerEvent(Type.HOLD_PLACED, cartItem.getId(), cartItem.getTripId(),
+                SeatInventory.parseSeatNumbers(cartItem.getSeatNumbers()), cartItem.getHoldExpiresAt());
+    }
+
+    public static LedgerEvent holdReleased(CartItem cartItem) {
+        return new LedgerEvent(Type.HOLD_RELEASED, cartItem.getId(), cartItem.getTripId(),
+                SeatInventory.parseSeatNumbers(cartItem.getSeatNumbers()), null);
+    }
+
+    public static LedgerEvent booked(Booking booking) {
+        return new LedgerEvent(Type.BOOKED, booking.getId(), booking.getTripId(),
+                SeatInventory.parseSeatNumbers(booking.getSeatNumbers()), null);
+    }
+
+    public static LedgerEvent cancelled(Booking booking) {
+        return new LedgerEvent(Type.CANCELLED, booking.getId(), booking.getTripId(),
+                SeatInventory.parseSeatNumbers(booking.getSeatNumbers()), null);
+    }
+
+    boolean isBookingEvent() {
+        return type == Type.BOOKED || type == Type.CANCELLED;
+    }
+
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type.ordinal());
+            out.writeLong(id);
+            out.writeLong(tripId);
+            out.writeShort(seats.length);
+            for (int seat : seats) {
+                out.writeShort(seat);
+            }
+            out.writeLong(holdExpiresAt == null ? Long.MIN_VALUE : holdExpiresAt.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(holdExpiresAt == null ? 0 : holdExpiresAt.getNano());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static LedgerEvent decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            Type type = Type.values()[in.readByte()];
+            long id = in.readLong();
+            long tripId = in.readLong();
+            int[] seats = new int[in.readShort()];
+            for (int i = 0; i < seats.length; i++) {
+                seats[i] = in.readShort();
+            }
+            long expires = in.readLong();
+            int expiresNano = in.readInt();
+            return new LedgerEvent(type, id, tripId, seats,
+                    expires == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(expires, expiresNano, ZoneOffset.UTC));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
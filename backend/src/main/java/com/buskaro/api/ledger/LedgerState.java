@@ -0,0 +1,149 @@
+package com.buskaro.api.ledger;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * State folded from the ledger: the booked seats of every trip and every hold still open.
+ * Trips and cart items created before the ledger existed are not covered, which the two
+ * {@code covered*From} ids record. Not thread-safe; {@link BookingLedger} guards it.
+ */
+final class LedgerState {
+    record Hold(long cartItemId, long tripId, int[] seats, LocalDateTime expiresAt) {
+    }
+
+    private final Map<Long, BitSet> booked = new HashMap<>();
+    private final Map<Long, Hold> holds = new HashMap<>();
+    private final long coveredTripsFrom;
+    private final long coveredCartItemsFrom;
+    private long maxTripId;
+
+    LedgerState(long coveredTripsFrom, long coveredCartItemsFrom) {
+        this.coveredTripsFrom = coveredTripsFrom;
+        this.coveredCartItemsFrom = coveredCartItemsFrom;
+        this.maxTripId = coveredTripsFrom - 1;
+    }
+
+    void apply(LedgerEvent event) {
+        switch (event.type()) {
+            case HOLD_PLACED -> placeHold(event);
+            case HOLD_RELEASED -> holds.remove(event.id());
+            case BOOKED -> book(event.tripId(), event.seats());
+            case CANCELLED -> unbook(event.tripId(), event.seats());
+        }
+    }
+
+    void placeHold(LedgerEvent event) {
+        holds.put(event.id(), new Hold(event.id(), event.tripId(), event.seats(), event.holdExpiresAt()));
+        maxTripId = Math.max(maxTripId, event.tripId());
+    }
+
+    void removeHold(long cartItemId) {
+        holds.remove(cartItemId);
+    }
+
+    void book(long tripId, int[] seats) {
+        BitSet taken = booked.computeIfAbsent(tripId, id -> new BitSet());
+        for (int seat : seats) {
+            taken.set(seat);
+        }
+        maxTripId = Math.max(maxTripId, tripId);
+    }
+
+    void unbook(long tripId, int[] seats) {
+        BitSet taken = booked.get(tripId);
+        if (taken == null) {
+            return;
+        }
+        for (int seat : seats) {
+            taken.clear(seat);
+        }
+        if (taken.isEmpty()) {
+            booked.remove(tripId);
+        }
+    }
+
+    /** Booked seats of a covered trip, or null if the trip predates the ledger. */
+    int[] bookedSeats(long tripId) {
+        if (tripId < coveredTripsFrom) {
+            return null;
+        }
+        BitSet taken = booked.get(tripId);
+        return taken == null ? new int[0] : taken.stream().toArray();
+    }
+
+    Collection<Hold> holds() {
+        return holds.values();
+    }
+
+    int trips() {
+        return booked.size();
+    }
+
+    long coveredCartItemsFrom() {
+        return coveredCartItemsFrom;
+    }
+
+    long maxTripId() {
+        return maxTripId;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(coveredTripsFrom);
+        out.writeLong(coveredCartItemsFrom);
+        out.writeLong(maxTripId);
+        out.writeInt(booked.size());
+        for (Map.Entry<Long, BitSet> trip : booked.entrySet()) {
+            out.writeLong(trip.getKey());
+            long[] words = trip.getValue().toLongArray();
+            out.writeShort(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+        out.writeInt(holds.size());
+        for (Hold hold : holds.values()) {
+            out.writeLong(hold.cartItemId());
+            out.writeLong(hold.tripId());
+            out.writeShort(hold.seats().length);
+            for (int seat : hold.seats()) {
+                out.writeShort(seat);
+            }
+            out.writeLong(hold.expiresAt().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(hold.expiresAt().getNano());
+        }
+    }
+
+    static LedgerState readFrom(DataInputStream in) throws IOException {
+        LedgerState state = new LedgerState(in.readLong(), in.readLong());
+        state.maxTripId = in.readLong();
+        int trips = in.readInt();
+        for (int i = 0; i < trips; i++) {
+            long tripId = in.readLong();
+            long[] words = new long[in.readShort()];
+            for (int w = 0; w < words.length; w++) {
+                words[w] = in.readLong();
+            }
+            state.booked.put(tripId, BitSet.valueOf(words));
+        }
+        int holds = in.readInt();
+        for (int i = 0; i < holds; i++) {
+            long cartItemId = in.readLong();
+            long tripId = in.readLong();
+            int[] seats = new int[in.readShort()];
+            for (int s = 0; s < seats.length; s++) {
+                seats[s] = in.readShort();
+            }
+            LocalDateTime expiresAt = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+            state.holds.put(cartItemId, new Hold(cartItemId, tripId, seats, expiresAt));
+        }
+        return state;
+    }
+}
@@ -1,10 +1,18 @@
 package com.buskaro.api.repository;
 
 import com.buskaro.api.entity.Booking;
+import com.buskaro.api.entity.BookingStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    // All queries will be handled in the service layer for simplicity
-} 
\ No newline at end of file
+    List<Booking> findByUserIdOrderByBookingDateDescIdDesc(Long userId, Pageable pageable);
+
+    List<Booking> findByUserIdAndStatusOrderByBookingDateDescIdDesc(Long userId, BookingStatus status, Pageable pageable);
+
+    List<Booking> findByTripIdAndStatus(Long tripId, BookingStatus status);
+}
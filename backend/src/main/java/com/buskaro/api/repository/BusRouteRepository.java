@@ -1,10 +1,26 @@
 package com.buskaro.api.repository;
 
 import com.buskaro.api.entity.BusRoute;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface BusRouteRepository extends JpaRepository<BusRoute, Long> {
-    // All queries will be handled in the service layer for simplicity
-} 
\ No newline at end of file
+    // Keyset page: an index range scan on the primary key, however deep the page
+    List<BusRoute> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("select r from BusRoute r order by r.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<BusRoute> streamAllByOrderByIdAsc();
+}
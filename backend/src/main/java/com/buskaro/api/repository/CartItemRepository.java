@@ -1,10 +1,30 @@
 package com.buskaro.api.repository;
 
 import com.buskaro.api.entity.CartItem;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
-    // All queries will be handled in the service layer for simplicity
-} 
\ No newline at end of file
+    List<CartItem> findByUserId(Long userId);
+
+    List<CartItem> findByIdGreaterThanAndIdLessThanAndHoldExpiresAtAfterOrderByIdAsc(
+            Long after, Long before, LocalDateTime expiresAfter, Limit limit);
+
+    @Modifying
+    @Query("delete from CartItem c where c.userId = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from CartItem c where c.holdExpiresAt < :cutoff")
+    int deleteAllByHoldExpiresAtBefore(@Param("cutoff") LocalDateTime cutoff);
+}
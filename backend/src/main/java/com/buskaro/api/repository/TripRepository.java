@@ -0,0 +1,9 @@
+package com.buskaro.api.repository;
+
+import com.buskaro.api.entity.Trip;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TripRepository extends JpaRepository<Trip, Long> {
+}
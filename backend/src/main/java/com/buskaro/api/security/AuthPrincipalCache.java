@@ -0,0 +1,70 @@
+package com.buskaro.api.security;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-evicting cache of resolved principals keyed by user id, so that authenticating
+ * a request with a verified token costs no database round trip. Entries are invalidated when
+ * the user row changes (see {@link UserChangeListener}); the TTL bounds staleness for changes
+ * made outside the application. Hit rate is published as {@code cache.gets} etc. under
+ * {@code cache=authPrincipals}.
+ *
+ * <p>Misses are loaded on the calling thread, outside any cache lock: a blocking JDBC call
+ * inside {@code Cache.get}'s compute would hold a map bin monitor and pin a virtual thread's
+ * carrier. Concurrent misses for the same user wait on the first caller's future instead.
+ */
+@Component
+public class AuthPrincipalCache {
+    private final AsyncCache<Long, AuthenticatedUser> principals;
+
+    public AuthPrincipalCache(MeterRegistry meterRegistry,
+                              @Value("${auth.principal-cache.max-size:100000}") long maxSize,
+                              @Value("${auth.principal-cache.ttl:PT5M}") Duration ttl) {
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals.synchronous(), "authPrincipals");
+    }
+
+    public AuthenticatedUser get(Long userId, Function<Long, AuthenticatedUser> loader) {
+        CompletableFuture<AuthenticatedUser> cached = principals.getIfPresent(userId);
+        if (cached == null) {
+            CompletableFuture<AuthenticatedUser> loading = new CompletableFuture<>();
+            cached = principals.asMap().putIfAbsent(userId, loading);
+            if (cached == null) {
+                try {
+                    loading.complete(loader.apply(userId));
+                } catch (RuntimeException e) {
+                    // Failed futures are dropped from the cache, so the next request retries
+                    loading.completeExceptionally(e);
+                    throw e;
+                }
+                return loading.join();
+            }
+        }
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void invalidate(Long userId) {
+        principals.synchronous().invalidate(userId);
+    }
+}
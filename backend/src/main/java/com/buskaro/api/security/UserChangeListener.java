@@ -0,0 +1,35 @@
+package com.buskaro.api.security;
+
+import com.buskaro.api.entity.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA callback for {@link User} that drops the cached principal after a password, email or
+ * account change commits, so the next request re-reads the user.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserChangeListener {
+    private final AuthPrincipalCache principalCache;
+
+    @PostUpdate
+    @PostRemove
+    public void onChanged(User user) {
+        Long userId = user.getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            principalCache.invalidate(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                principalCache.invalidate(userId);
+            }
+        });
+    }
+}
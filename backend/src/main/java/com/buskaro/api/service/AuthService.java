@@ -4,53 +4,65 @@ import com.buskaro.api.dto.auth.AuthResponse;
 import com.buskaro.api.dto.auth.LoginRequest;
 import com.buskaro.api.dto.auth.SignupRequest;
 import com.buskaro.api.entity.User;
+import com.buskaro.api.exception.BusinessException;
+import com.buskaro.api.exception.UnauthorizedException;
 import com.buskaro.api.repository.UserRepository;
+import com.buskaro.api.security.AuthenticatedUser;
 import com.buskaro.api.security.JwtService;
+import com.buskaro.api.security.PasswordHasher;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class AuthService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtService jwtService;
-    private final AuthenticationManager authenticationManager;
-    private final UserDetailsService userDetailsService;
 
-    @Transactional
+    // Not @Transactional: hashing runs first so no connection is held while BCrypt works
     public AuthResponse signup(SignupRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Email already exists");
+            throw new BusinessException("Email already exists", HttpStatus.CONFLICT);
         }
 
         User user = new User();
         user.setName(request.getName());
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHasher.encode(request.getPassword()));
         user.setPhone(request.getPhone());
-        userRepository.save(user);
+        user.setCreatedAt(LocalDateTime.now());
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with a concurrent signup; the unique email index caught it
+            throw new BusinessException("Email already exists", HttpStatus.CONFLICT);
+        }
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(user.getEmail());
-        String token = jwtService.generateToken(userDetails);
-        return new AuthResponse(token, user.getEmail(), user.getName());
+        return issueToken(user);
     }
 
     public AuthResponse login(LoginRequest request) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-        );
-
-        UserDetails userDetails = userDetailsService.loadUserByUsername(request.getEmail());
-        User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        String token = jwtService.generateToken(userDetails);
+        Optional<User> user = userRepository.findByEmail(request.getEmail());
+        if (user.isEmpty()) {
+            passwordHasher.matchesNothing(request.getPassword());
+            throw new UnauthorizedException("Invalid email or password");
+        }
+        if (!passwordHasher.matches(request.getPassword(), user.get().getPassword())) {
+            throw new UnauthorizedException("Invalid email or password");
+        }
+        return issueToken(user.get());
+    }
+
+    private AuthResponse issueToken(User user) {
+        AuthenticatedUser principal = AuthenticatedUser.from(user);
+        principal.eraseCredentials();
+        String token = jwtService.generateToken(principal);
         return new AuthResponse(token, user.getEmail(), user.getName());
     }
-} 
\ No newline at end of file
+}
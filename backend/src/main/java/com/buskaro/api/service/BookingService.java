@@ -1,81 +1,146 @@
 package com.buskaro.api.service;
 
 import com.buskaro.api.entity.Booking;
+import com.buskaro.api.entity.BookingStatus;
+import com.buskaro.api.entity.BusRoute;
 import com.buskaro.api.entity.CartItem;
-import com.buskaro.api.entity.User;
+import com.buskaro.api.exception.BusinessException;
+import com.buskaro.api.exception.ResourceNotFoundException;
+import com.buskaro.api.index.RouteIndex;
+import com.buskaro.api.index.RoutePopularity;
+import com.buskaro.api.inventory.SeatHolds;
+import com.buskaro.api.inventory.SeatInventory;
+import com.buskaro.api.journal.BookingJournal;
+import com.buskaro.api.ledger.BookingLedger;
+import com.buskaro.api.ledger.LedgerEvent;
 import com.buskaro.api.repository.BookingRepository;
-import com.buskaro.api.repository.UserRepository;
+import com.buskaro.api.trip.ScheduledTrip;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class BookingService {
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final BookingRepository bookingRepository;
-    private final UserRepository userRepository;
     private final CartService cartService;
+    private final SeatInventory seatInventory;
+    private final SeatHolds seatHolds;
+    private final RouteIndex routeIndex;
+    private final RoutePopularity routePopularity;
+    private final TripService tripService;
+    private final Optional<BookingJournal> bookingJournal;
+    private final BookingLedger bookingLedger;
 
-    public List<Booking> getUserBookings(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return bookingRepository.findAll().stream()
-                .filter(booking -> booking.getUserId().equals(user.getId()))
-                .toList();
+    public List<Booking> getUserBookings(Long userId, BookingStatus status, int page, int size) {
+        if (page < 0 || size < 1) {
+            throw new BusinessException("Invalid page request");
+        }
+        bookingJournal.ifPresent(BookingJournal::awaitApplied);
+        // Newest first, served from the (user_id, booking_date) or (user_id, status, booking_date) index
+        PageRequest pageRequest = PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE));
+        return status == null
+                ? bookingRepository.findByUserIdOrderByBookingDateDescIdDesc(userId, pageRequest)
+                : bookingRepository.findByUserIdAndStatusOrderByBookingDateDescIdDesc(userId, status, pageRequest);
     }
 
-    public Booking createBooking(String email, Long routeId, String seats) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        Booking booking = new Booking();
-        booking.setUserId(user.getId());
-        booking.setRouteId(routeId);
-        booking.setSeats(seats);
-        booking.setTotalAmount("1000");
-        booking.setBookingDate(LocalDateTime.now().toString());
-        booking.setStatus("CONFIRMED");
-        
-        return bookingRepository.save(booking);
+    /**
+     * Books seats on a trip. The booking is written in its own short transaction, or, with the
+     * booking journal enabled, confirmed once it is durable in the journal without touching the
+     * database at all.
+     */
+    public Booking createBooking(Long userId, Long routeId, String date, String seats) {
+        ScheduledTrip trip = tripService.resolve(routeId, tripService.travelDate(date));
+        int[] seatNumbers = seatInventory.reserve(trip.tripId(), SeatInventory.parseCount(seats));
+        Booking booking;
+        try {
+            booking = newBooking(userId, routeId, trip.tripId(), trip.travelDate(), seatNumbers, LocalDateTime.now());
+            booking = bookingJournal.isPresent()
+                    ? appendToJournal(bookingJournal.get(), booking)
+                    : bookingRepository.save(booking);
+        } catch (RuntimeException e) {
+            seatInventory.release(trip.tripId(), seatNumbers);
+            throw e;
+        }
+        routePopularity.recordBookingAfterCommit(routeId, seatNumbers.length);
+        return booking;
     }
 
-    public void cancelBooking(Long bookingId) {
+    @Transactional
+    public void cancelBooking(Long userId, Long bookingId) {
+        bookingJournal.ifPresent(BookingJournal::awaitApplied);
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
-        booking.setStatus("CANCELLED");
+        if (!booking.getUserId().equals(userId)) {
+            throw new RuntimeException("Unauthorized");
+        }
+        if (booking.getStatus() != BookingStatus.CONFIRMED) {
+            return;
+        }
+        booking.setStatus(BookingStatus.CANCELLED);
         bookingRepository.save(booking);
+        seatInventory.releaseAfterCommit(booking.getTripId(), SeatInventory.parseSeatNumbers(booking.getSeatNumbers()));
     }
 
-    public List<Booking> checkout(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
+    @Transactional
+    public List<Booking> checkout(Long userId) {
         // Get all cart items for the user
-        List<CartItem> cartItems = cartService.getCartItems(email);
+        List<CartItem> cartItems = cartService.getCartItems(userId);
         
         if (cartItems.isEmpty()) {
             throw new RuntimeException("Cart is empty");
         }
         
-        // Create bookings for each cart item
-        List<Booking> bookings = cartItems.stream()
-                .map(cartItem -> {
-                    Booking booking = new Booking();
-                    booking.setUserId(user.getId());
-                    booking.setRouteId(cartItem.getRouteId());
-                    booking.setSeats(cartItem.getSeats());
-                    booking.setTotalAmount("1000"); // Calculate based on route price and seats
-                    booking.setBookingDate(LocalDateTime.now().toString());
-                    booking.setStatus("CONFIRMED");
-                    return bookingRepository.save(booking);
-                })
-                .toList();
-        
-        // Clear the cart after successful booking
-        cartService.clearCart(email);
+        // Claim the held seats for every cart item; if any claim fails the rollback puts the holds back
+        LocalDateTime bookingDate = LocalDateTime.now();
+        List<Booking> bookings = new ArrayList<>(cartItems.size());
+        for (CartItem cartItem : cartItems) {
+            int[] seatNumbers = seatHolds.claim(cartItem);
+            routePopularity.recordBookingAfterCommit(cartItem.getRouteId(), seatNumbers.length);
+            bookings.add(newBooking(userId, cartItem.getRouteId(), cartItem.getTripId(), cartItem.getTravelDate(),
+                    seatNumbers, bookingDate));
+        }
+
+        // One JDBC batch for all bookings, then one bulk delete for the cart, in a single transaction
+        bookingRepository.saveAll(bookings);
+        cartService.clearCart(userId);
         
         return bookings;
     }
+
+    /** The journal writes outside JPA, so the ledger event is recorded around the append here. */
+    private Booking appendToJournal(BookingJournal journal, Booking booking) {
+        journal.assignId(booking);
+        return bookingLedger.recordAround(LedgerEvent.booked(booking), () -> journal.append(booking));
+    }
+
+    private Booking newBooking(Long userId, Long routeId, Long tripId, LocalDate travelDate, int[] seatNumbers,
+                               LocalDateTime bookingDate) {
+        BusRoute route = routeIndex.get(routeId);
+        if (route == null) {
+            throw new ResourceNotFoundException("Route not found");
+        }
+
+        Booking booking = new Booking();
+        booking.setUserId(userId);
+        booking.setRouteId(routeId);
+        booking.setTripId(tripId);
+        booking.setTravelDate(travelDate);
+        booking.setSeats(seatNumbers.length);
+        booking.setSeatNumbers(SeatInventory.formatSeatNumbers(seatNumbers));
+        booking.setTotalAmount(route.getPricePerSeat().multiply(BigDecimal.valueOf(seatNumbers.length)));
+        booking.setBookingDate(bookingDate);
+        booking.setStatus(BookingStatus.CONFIRMED);
+        return booking;
+    }
 } 
\ No newline at end of file
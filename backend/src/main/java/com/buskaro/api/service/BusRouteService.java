@@ -1,45 +1,225 @@
 package com.buskaro.api.service;
 
 import com.buskaro.api.entity.BusRoute;
+import com.buskaro.api.exception.BusinessException;
+import com.buskaro.api.index.CatalogSnapshot;
+import com.buskaro.api.index.CityAutocomplete;
+import com.buskaro.api.index.ConnectionSearch;
+import com.buskaro.api.index.RouteCatalogReloadedEvent;
+import com.buskaro.api.index.RouteIndex;
+import com.buskaro.api.index.RoutePopularity;
+import com.buskaro.api.index.SearchResultCache;
 import com.buskaro.api.repository.BusRouteRepository;
+import com.buskaro.api.trip.ScheduledTrip;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class BusRouteService {
     private final BusRouteRepository busRouteRepository;
+    private static final int MAX_LEGS = 4;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int POPULAR_ROUTES = 5;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final RouteIndex routeIndex;
+    private final ConnectionSearch connectionSearch;
+    private final CatalogSnapshot catalogSnapshot;
+    private final CityAutocomplete cityAutocomplete;
+    private final RoutePopularity routePopularity;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TripService tripService;
+    private final SearchResultCache searchResultCache;
 
-    public List<BusRoute> getAllRoutes() {
-        return busRouteRepository.findAll();
-    }
 
-    public List<BusRoute> searchRoutes(String from, String to, String date) {
-        return busRouteRepository.findAll().stream()
-                .filter(route -> route.getOrigin().equalsIgnoreCase(from) && 
-                                route.getDestination().equalsIgnoreCase(to))
+    /**
+     * Loads the route catalog into the in-memory indexes at startup and after bulk imports. Other
+     * writes keep the indexes current through {@link com.buskaro.api.index.RouteChangedEvent}.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void rebuildIndexes() {
+        List<BusRoute> routes = busRouteRepository.findAll().stream()
+                .map(BusRoute::snapshot)
                 .toList();
+        routeIndex.rebuild(routes);
+        catalogSnapshot.rebuild(routes);
+        connectionSearch.rebuild();
+        log.info("Route index built with {} routes", routes.size());
+        eventPublisher.publishEvent(new RouteCatalogReloadedEvent(routes.size()));
     }
 
-    public List<String> getAllCities() {
-        return busRouteRepository.findAll().stream()
-                .flatMap(route -> List.of(route.getOrigin(), route.getDestination()).stream())
-                .distinct()
-                .toList();
+    /** One page of trips and the opaque cursor for the next one, null on the last page. */
+    public record TripPage(List<ScheduledTrip> trips, String nextCursor) {
     }
 
-    public List<String> getAllOperators() {
-        return busRouteRepository.findAll().stream()
-                .map(BusRoute::getBusOperator)
-                .distinct()
-                .toList();
+    /** A journey and the trip each of its legs runs as, on the leg's own day. */
+    public record Connection(ConnectionSearch.Journey journey, List<ScheduledTrip> legTrips) {
     }
 
-    public List<BusRoute> getPopularRoutes() {
-        return busRouteRepository.findAll().stream()
-                .limit(5)
-                .toList();
+    /** A page of routes in id order, each as today's trip so seat counts are live. */
+    public TripPage getRoutes(Long after, int limit) {
+        int size = pageSize(limit);
+        // One extra row tells us whether there is a next page without a count query
+        List<BusRoute> rows = busRouteRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, Limit.of(size + 1));
+        String nextCursor = rows.size() <= size ? null : String.valueOf(rows.get(size - 1).getId());
+        return new TripPage(today(rows.subList(0, Math.min(size, rows.size()))), nextCursor);
+    }
+
+    /**
+     * Hands every route, as today's trip, to {@code sink} in id order straight off a database
+     * cursor. Each row is detached once consumed, so memory stays flat however large the catalog is.
+     */
+    @Transactional(readOnly = true)
+    public void streamRoutes(Consumer<ScheduledTrip> sink) {
+        LocalDate today = tripService.today();
+        try (Stream<BusRoute> routes = busRouteRepository.streamAllByOrderByIdAsc()) {
+            routes.forEach(route -> {
+                sink.accept(tripService.schedule(route, today));
+                entityManager.detach(route);
+            });
+        }
+    }
+
+    /**
+     * Searches one day's departures. The matching routes come from {@link SearchResultCache};
+     * trips and seat counts for the date are looked up fresh for every request.
+     */
+    public TripPage searchRoutes(String from, String to, String date, LocalTime departAfter, LocalTime departBefore,
+                                 BigDecimal maxPrice, String after, int limit) {
+        LocalDate travelDate = tripService.travelDate(date);
+        int size = pageSize(limit);
+        SearchResultCache.Page page = searchResultCache.get(from, to, departAfter, departBefore, maxPrice, after, size,
+                () -> findRoutes(from, to, departAfter, departBefore, maxPrice, after, size));
+        routePopularity.recordSearchHits(page.routes());
+        List<ScheduledTrip> trips = new ArrayList<>(page.routes().size());
+        for (BusRoute route : page.routes()) {
+            trips.add(tripService.schedule(route, travelDate));
+        }
+        return new TripPage(trips, page.nextCursor());
+    }
+
+    /** Journeys leaving today or later; a leg {@code n} days out is that day's trip of its route. */
+    public List<Connection> searchConnections(String from, String to, String departAfter,
+                                              int minLayoverMinutes, int maxTransfers) {
+        if (minLayoverMinutes < 0 || maxTransfers < 0) {
+            throw new BusinessException("Layover and transfers must not be negative");
+        }
+        int departAfterMinute;
+        try {
+            LocalTime time = departAfter == null ? LocalTime.MIDNIGHT : LocalTime.parse(departAfter);
+            departAfterMinute = time.getHour() * 60 + time.getMinute();
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("Invalid departure time: " + departAfter);
+        }
+        int maxLegs = Math.min(maxTransfers + 1, MAX_LEGS);
+        LocalDate today = tripService.today();
+        List<Connection> connections = new ArrayList<>();
+        for (ConnectionSearch.Journey journey : connectionSearch.search(from, to, departAfterMinute, minLayoverMinutes, maxLegs)) {
+            List<ScheduledTrip> legTrips = new ArrayList<>(journey.legs().size());
+            for (ConnectionSearch.Leg leg : journey.legs()) {
+                LocalDate day = today.plusDays(leg.departureMinute() / ConnectionSearch.MINUTES_PER_DAY);
+                legTrips.add(tripService.schedule(leg.route(), day));
+            }
+            connections.add(new Connection(journey, legTrips));
+        }
+        return connections;
+    }
+
+    public CatalogSnapshot.Payload getAllCities() {
+        return catalogSnapshot.cities();
+    }
+
+    public List<CityAutocomplete.Suggestion> suggestCities(String query, int limit) {
+        if (limit < 1) {
+            throw new BusinessException("Limit must be positive");
+        }
+        return cityAutocomplete.suggest(query, Math.min(limit, MAX_SUGGESTIONS));
+    }
+
+    public CatalogSnapshot.Payload getAllOperators() {
+        return catalogSnapshot.operators();
+    }
+
+    public List<ScheduledTrip> getPopularRoutes() {
+        return today(routePopularity.top(POPULAR_ROUTES));
+    }
+
+    private List<ScheduledTrip> today(List<BusRoute> routes) {
+        LocalDate today = tripService.today();
+        List<ScheduledTrip> trips = new ArrayList<>(routes.size());
+        for (BusRoute route : routes) {
+            trips.add(tripService.schedule(route, today));
+        }
+        return trips;
+    }
+
+    private SearchResultCache.Page findRoutes(String from, String to, LocalTime departAfter, LocalTime departBefore,
+                                              BigDecimal maxPrice, String after, int size) {
+        List<BusRoute> window = after == null
+                ? routeIndex.find(from, to, departAfter, departBefore)
+                : findAfterCursor(from, to, departAfter, departBefore, after);
+        List<BusRoute> routes = new ArrayList<>(Math.min(size, window.size()));
+        String nextCursor = null;
+        for (BusRoute route : window) {
+            if (maxPrice != null && route.getPricePerSeat().compareTo(maxPrice) > 0) {
+                continue;
+            }
+            if (routes.size() == size) {
+                nextCursor = searchCursor(routes.get(size - 1));
+                break;
+            }
+            routes.add(route);
+        }
+        return new SearchResultCache.Page(List.copyOf(routes), nextCursor);
+    }
+
+    private static int pageSize(int limit) {
+        if (limit < 1) {
+            throw new BusinessException("Limit must be positive");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private List<BusRoute> findAfterCursor(String from, String to, LocalTime departAfter, LocalTime departBefore,
+                                           String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            String departure = decoded.substring(0, separator);
+            LocalTime cursorDeparture = departure.equals("-") ? null : LocalTime.ofSecondOfDay(Integer.parseInt(departure));
+            Long cursorId = Long.valueOf(decoded.substring(separator + 1));
+            return routeIndex.findAfter(from, to, departAfter, departBefore, cursorDeparture, cursorId);
+        } catch (IllegalArgumentException | DateTimeException | IndexOutOfBoundsException e) {
+            throw new BusinessException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // Search results are ordered by (departure time, id), so the cursor carries both
+    private static String searchCursor(BusRoute last) {
+        String departure = last.getDepartureTime() == null ? "-" : String.valueOf(last.getDepartureTime().toSecondOfDay());
+        String position = departure + ":" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
     }
-} 
\ No newline at end of file
+}
@@ -1,11 +1,15 @@
 package com.buskaro.api.service;
 
 import com.buskaro.api.entity.CartItem;
-import com.buskaro.api.entity.User;
+import com.buskaro.api.inventory.SeatHolds;
+import com.buskaro.api.inventory.SeatInventory;
+import com.buskaro.api.ledger.BookingLedger;
+import com.buskaro.api.ledger.LedgerEvent;
 import com.buskaro.api.repository.CartItemRepository;
-import com.buskaro.api.repository.UserRepository;
+import com.buskaro.api.trip.ScheduledTrip;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -14,51 +18,59 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CartService {
     private final CartItemRepository cartItemRepository;
-    private final UserRepository userRepository;
+    private final SeatInventory seatInventory;
+    private final SeatHolds seatHolds;
+    private final TripService tripService;
+    private final BookingLedger bookingLedger;
 
-    public List<CartItem> getCartItems(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return cartItemRepository.findAll().stream()
-                .filter(item -> item.getUserId().equals(user.getId()))
-                .toList();
+    public List<CartItem> getCartItems(Long userId) {
+        return cartItemRepository.findByUserId(userId);
     }
 
-    public CartItem addToCart(String email, Long routeId, String seats) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    @Transactional
+    public CartItem addToCart(Long userId, Long routeId, String date, String seats) {
+        ScheduledTrip trip = tripService.resolve(routeId, tripService.travelDate(date));
+        int[] seatNumbers = seatInventory.reserve(trip.tripId(), SeatInventory.parseCount(seats));
+        seatInventory.releaseOnRollback(trip.tripId(), seatNumbers);
         
         CartItem cartItem = new CartItem();
-        cartItem.setUserId(user.getId());
+        cartItem.setUserId(userId);
         cartItem.setRouteId(routeId);
-        cartItem.setSeats(seats);
-        cartItem.setCreatedAt(LocalDateTime.now().toString());
+        cartItem.setTripId(trip.tripId());
+        cartItem.setTravelDate(trip.travelDate());
+        cartItem.setSeats(seatNumbers.length);
+        cartItem.setSeatNumbers(SeatInventory.formatSeatNumbers(seatNumbers));
+        cartItem.setCreatedAt(LocalDateTime.now());
+        cartItem.setHoldExpiresAt(seatHolds.newExpiry());
         
-        return cartItemRepository.save(cartItem);
+        CartItem saved = cartItemRepository.save(cartItem);
+        seatHolds.holdAfterCommit(saved);
+        return saved;
     }
 
-    public void removeFromCart(String email, Long cartItemId) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
+    @Transactional
+    public void removeFromCart(Long userId, Long cartItemId) {
         CartItem cartItem = cartItemRepository.findById(cartItemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
         
-        if (!cartItem.getUserId().equals(user.getId())) {
+        if (!cartItem.getUserId().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
         
         cartItemRepository.delete(cartItem);
+        seatHolds.releaseAfterCommit(cartItem);
     }
 
-    public void clearCart(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        List<CartItem> userCartItems = cartItemRepository.findAll().stream()
-                .filter(item -> item.getUserId().equals(user.getId()))
-                .toList();
-        
-        cartItemRepository.deleteAll(userCartItems);
+    @Transactional
+    public void clearCart(Long userId) {
+        // Release any seats still on hold; items already checked out hold nothing. The bulk
+        // delete skips entity callbacks, so the ledger is told about each item here.
+        for (CartItem cartItem : cartItemRepository.findByUserId(userId)) {
+            seatHolds.releaseAfterCommit(cartItem);
+            if (cartItem.getTripId() != null) {
+                bookingLedger.record(LedgerEvent.holdReleased(cartItem));
+            }
+        }
+        cartItemRepository.deleteAllByUserId(userId);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.buskaro.api.service;
+
+import com.buskaro.api.entity.BusRoute;
+import com.buskaro.api.exception.BusinessException;
+import com.buskaro.api.exception.ResourceNotFoundException;
+import com.buskaro.api.index.RouteIndex;
+import com.buskaro.api.inventory.SeatInventory;
+import com.buskaro.api.trip.ScheduledTrip;
+import com.buskaro.api.trip.TripCalendar;
+import com.buskaro.api.trip.TripGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+@Service
+@RequiredArgsConstructor
+public class TripService {
+    private final RouteIndex routeIndex;
+    private final TripCalendar tripCalendar;
+    private final TripGenerator tripGenerator;
+    private final SeatInventory seatInventory;
+
+    /** Parses a requested travel date, defaulting to today, and checks it is bookable. */
+    public LocalDate travelDate(String date) {
+        LocalDate travelDate;
+        try {
+            travelDate = date == null || date.isBlank() ? tripGenerator.firstDay() : LocalDate.parse(date.trim());
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("Invalid travel date: " + date);
+        }
+        if (travelDate.isBefore(tripGenerator.firstDay()) || travelDate.isAfter(tripGenerator.lastDay())) {
+            throw new BusinessException("Travel date must be between " + tripGenerator.firstDay()
+                    + " and " + tripGenerator.lastDay());
+        }
+        return travelDate;
+    }
+
+    /** The first bookable day, whose trips route listings show. */
+    public LocalDate today() {
+        return tripGenerator.firstDay();
+    }
+
+    /** The route's trip on {@code date} as shown in search results; never writes. */
+    public ScheduledTrip schedule(BusRoute route, LocalDate date) {
+        TripCalendar.Entry entry = tripCalendar.find(date, route.getId());
+        if (entry == null) {
+            return new ScheduledTrip(route, date, null, route.getTotalSeats());
+        }
+        return new ScheduledTrip(route, date, entry.tripId(),
+                seatInventory.availableIfLoaded(entry.tripId(), entry.seatsAvailable()));
+    }
+
+    /** The bookable trip of {@code routeId} on {@code date}, materialized if need be. */
+    public ScheduledTrip resolve(Long routeId, LocalDate date) {
+        BusRoute route = routeIndex.get(routeId);
+        if (route == null) {
+            throw new ResourceNotFoundException("Route not found");
+        }
+        TripCalendar.Entry entry = tripGenerator.materialize(routeId, date, route.getTotalSeats());
+        return new ScheduledTrip(route, date, entry.tripId(),
+                seatInventory.availableIfLoaded(entry.tripId(), entry.seatsAvailable()));
+    }
+}
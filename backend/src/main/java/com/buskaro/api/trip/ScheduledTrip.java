@@ -0,0 +1,12 @@
+package com.buskaro.api.trip;
+
+import com.buskaro.api.entity.BusRoute;
+
+import java.time.LocalDate;
+
+/**
+ * A route as it runs on one service day. {@code tripId} is null while the trip hasn't been
+ * materialized; it then has no bookings, so every seat is free.
+ */
+public record ScheduledTrip(BusRoute route, LocalDate travelDate, Long tripId, int seatsAvailable) {
+}
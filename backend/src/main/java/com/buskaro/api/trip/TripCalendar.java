@@ -0,0 +1,142 @@
+package com.buskaro.api.trip;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * In-memory trips, one block per service day. A block holds that day's route ids in sorted
+ * order next to the trip ids and seat counts, so finding the trip for a search result is a
+ * binary search within one day and other days are never touched. Blocks are replaced whole by
+ * {@link TripGenerator}; seat counts are updated in place as inventory is written back.
+ */
+@Component
+public class TripCalendar {
+    private final Map<LocalDate, Day> days = new ConcurrentHashMap<>();
+
+    public record Entry(long tripId, int seatsAvailable) {
+    }
+
+    /** The trip of {@code routeId} on {@code date}, or null if it isn't materialized (yet). */
+    public Entry find(LocalDate date, long routeId) {
+        Day day = days.get(date);
+        if (day == null) {
+            return null;
+        }
+        int slot = Arrays.binarySearch(day.routeIds, routeId);
+        return slot < 0 ? null : new Entry(day.tripIds[slot], day.seats.get(slot));
+    }
+
+    public void updateSeats(LocalDate date, long routeId, int seatsAvailable) {
+        Day day = days.get(date);
+        if (day != null) {
+            int slot = Arrays.binarySearch(day.routeIds, routeId);
+            if (slot >= 0) {
+                day.seats.set(slot, seatsAvailable);
+            }
+        }
+    }
+
+    boolean isLoaded(LocalDate date) {
+        return days.containsKey(date);
+    }
+
+    int size(LocalDate date) {
+        Day day = days.get(date);
+        return day == null ? 0 : day.routeIds.length;
+    }
+
+    void replace(LocalDate date, Day day) {
+        days.put(date, day);
+    }
+
+    /** Adds one trip to a loaded day; days that aren't loaded pick it up when they are. */
+    void add(LocalDate date, long routeId, long tripId, int seatsAvailable) {
+        days.computeIfPresent(date, (d, day) -> day.with(routeId, tripId, seatsAvailable));
+    }
+
+    /** Drops every day before {@code date} and returns the trip ids that were dropped. */
+    List<Long> evictBefore(LocalDate date) {
+        List<Long> evicted = new ArrayList<>();
+        days.keySet().removeIf(day -> {
+            if (!day.isBefore(date)) {
+                return false;
+            }
+            Day removed = days.get(day);
+            if (removed != null) {
+                for (long tripId : removed.tripIds) {
+                    evicted.add(tripId);
+                }
+            }
+            return true;
+        });
+        return evicted;
+    }
+
+    /** One day's trips, sorted by route id. The arrays never change once published. */
+    static final class Day {
+        private final long[] routeIds;
+        private final long[] tripIds;
+        private final AtomicIntegerArray seats;
+
+        private Day(long[] routeIds, long[] tripIds, AtomicIntegerArray seats) {
+            this.routeIds = routeIds;
+            this.tripIds = tripIds;
+            this.seats = seats;
+        }
+
+        private Day with(long routeId, long tripId, int seatsAvailable) {
+            int slot = Arrays.binarySearch(routeIds, routeId);
+            if (slot >= 0) {
+                return this;
+            }
+            int at = -slot - 1;
+            int n = routeIds.length;
+            long[] routes = new long[n + 1];
+            long[] trips = new long[n + 1];
+            AtomicIntegerArray counts = new AtomicIntegerArray(n + 1);
+            System.arraycopy(routeIds, 0, routes, 0, at);
+            System.arraycopy(tripIds, 0, trips, 0, at);
+            System.arraycopy(routeIds, at, routes, at + 1, n - at);
+            System.arraycopy(tripIds, at, trips, at + 1, n - at);
+            for (int i = 0; i < n; i++) {
+                counts.set(i < at ? i : i + 1, seats.get(i));
+            }
+            routes[at] = routeId;
+            trips[at] = tripId;
+            counts.set(at, seatsAvailable);
+            return new Day(routes, trips, counts);
+        }
+    }
+
+    /** Collects one day's trips; rows must arrive in ascending route id order. */
+    static final class DayBuilder {
+        private long[] routeIds = new long[1024];
+        private long[] tripIds = new long[1024];
+        private int[] seats = new int[1024];
+        private int size;
+
+        void add(long routeId, long tripId, int seatsAvailable) {
+            if (size == routeIds.length) {
+                routeIds = Arrays.copyOf(routeIds, size * 2);
+                tripIds = Arrays.copyOf(tripIds, size * 2);
+                seats = Arrays.copyOf(seats, size * 2);
+            }
+            routeIds[size] = routeId;
+            tripIds[size] = tripId;
+            seats[size] = seatsAvailable;
+            size++;
+        }
+
+        Day build() {
+            return new Day(Arrays.copyOf(routeIds, size), Arrays.copyOf(tripIds, size),
+                    new AtomicIntegerArray(Arrays.copyOf(seats, size)));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.buskaro.api.trip;
+
+import com.buskaro.api.index.RouteCatalogReloadedEvent;
+import com.buskaro.api.inventory.SeatInventory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Materializes trips for every route on each day of a rolling window that starts today. Rolls
+ * run on a background thread: missing trips for a day are inserted with one set-based
+ * statement, then the day is read back in route order and swapped into {@link TripCalendar},
+ * so searches keep reading the previous block until the new one is complete. Days that have
+ * fallen out of the window are dropped from memory; their rows stay as booking history.
+ */
+@Slf4j
+@Component
+public class TripGenerator {
+    private static final String INSERT_MISSING = "insert into trips (route_id, travel_date, total_seats, seats_available, version) "
+            + "select r.id, ?, r.total_seats, r.total_seats, 0 from bus_routes r "
+            + "where not exists (select 1 from trips t where t.route_id = r.id and t.travel_date = ?)";
+    private static final String INSERT_ONE = "insert into trips (route_id, travel_date, total_seats, seats_available, version) "
+            + "values (?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TripCalendar tripCalendar;
+    private final SeatInventory seatInventory;
+    private final int windowDays;
+    private final ExecutorService roller;
+    private final AtomicBoolean rollPending = new AtomicBoolean();
+    private volatile boolean reloadPending;
+
+    public TripGenerator(JdbcTemplate jdbcTemplate,
+                         TripCalendar tripCalendar,
+                         SeatInventory seatInventory,
+                         @Value("${trips.window-days:30}") int windowDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tripCalendar = tripCalendar;
+        this.seatInventory = seatInventory;
+        this.windowDays = windowDays;
+        this.roller = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trip-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public LocalDate firstDay() {
+        return LocalDate.now();
+    }
+
+    public LocalDate lastDay() {
+        return firstDay().plusDays(windowDays - 1L);
+    }
+
+    /**
+     * Returns the trip of {@code routeId} on {@code date}, creating it if the generator hasn't
+     * reached it yet (a route imported since the last roll, say). Safe to race with a roll.
+     */
+    public TripCalendar.Entry materialize(long routeId, LocalDate date, int totalSeats) {
+        TripCalendar.Entry entry = tripCalendar.find(date, routeId);
+        if (entry != null) {
+            return entry;
+        }
+        try {
+            jdbcTemplate.update(INSERT_ONE, routeId, date, totalSeats, totalSeats);
+        } catch (DuplicateKeyException e) {
+            // Created concurrently by a roll or another request
+        }
+        entry = jdbcTemplate.queryForObject("select id, seats_available from trips where route_id = ? and travel_date = ?",
+                (rs, row) -> new TripCalendar.Entry(rs.getLong(1), rs.getInt(2)), routeId, date);
+        tripCalendar.add(date, routeId, entry.tripId(), entry.seatsAvailable());
+        return entry;
+    }
+
+    @Scheduled(fixedDelayString = "${trips.roll-interval-ms:3600000}",
+            initialDelayString = "${trips.roll-interval-ms:3600000}")
+    public void scheduledRoll() {
+        requestRoll(false);
+    }
+
+    /** Routes were bulk loaded without per-route events, so every day in the window is reloaded. */
+    @EventListener
+    public void onCatalogReloaded(RouteCatalogReloadedEvent event) {
+        requestRoll(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        roller.shutdownNow();
+    }
+
+    private void requestRoll(boolean reload) {
+        if (reload) {
+            reloadPending = true;
+        }
+        // Requests that arrive while a roll is queued are folded into it
+        if (rollPending.compareAndSet(false, true)) {
+            roller.execute(() -> {
+                rollPending.set(false);
+                boolean reloadAll = reloadPending;
+                reloadPending = false;
+                try {
+                    roll(reloadAll);
+                } catch (RuntimeException e) {
+                    log.warn("Trip generation failed; retrying on the next roll", e);
+                }
+            });
+        }
+    }
+
+    private void roll(boolean reloadAll) {
+        long started = System.nanoTime();
+        LocalDate today = firstDay();
+        int created = 0;
+        int loaded = 0;
+        for (int offset = 0; offset < windowDays; offset++) {
+            LocalDate date = today.plusDays(offset);
+            if (!reloadAll && tripCalendar.isLoaded(date)) {
+                continue;
+            }
+            created += jdbcTemplate.update(INSERT_MISSING, date, date);
+            tripCalendar.replace(date, loadDay(date));
+            loaded++;
+        }
+        List<Long> evicted = tripCalendar.evictBefore(today);
+        seatInventory.evict(evicted);
+        if (loaded > 0 || !evicted.isEmpty()) {
+            log.info("Trip window {} to {}: {} days loaded, {} trips created, {} past trips evicted in {} ms",
+                    today, lastDay(), loaded, created, evicted.size(), (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    private TripCalendar.Day loadDay(LocalDate date) {
+        TripCalendar.DayBuilder day = new TripCalendar.DayBuilder();
+        jdbcTemplate.query("select route_id, id, seats_available from trips where travel_date = ? order by route_id",
+                rs -> {
+                    day.add(rs.getLong(1), rs.getLong(2), rs.getInt(3));
+                }, date);
+        return day.build();
+    }
+}
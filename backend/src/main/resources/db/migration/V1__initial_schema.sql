@@ -0,0 +1,60 @@
+create table users (
+    id         bigint generated by default as identity primary key,
+    email      varchar(255) not null,
+    password   varchar(255) not null,
+    name       varchar(255),
+    phone      varchar(32),
+    created_at timestamp(6)
+);
+
+create unique index ux_users_email on users (email);
+
+create table bus_routes (
+    id              bigint generated by default as identity primary key,
+    origin          varchar(100)   not null,
+    destination     varchar(100)   not null,
+    departure_time  time           not null,
+    arrival_time    time           not null,
+    bus_operator    varchar(255),
+    bus_type        varchar(100),
+    total_seats     integer        not null,
+    seats_available integer        not null,
+    price_per_seat  numeric(10, 2) not null,
+    amenities       varchar(1000),
+    version         bigint
+);
+
+-- Search shape: origin + destination, range over departure time
+create index idx_bus_routes_search on bus_routes (origin, destination, departure_time);
+
+create sequence bookings_seq start with 1 increment by 50;
+
+create table bookings (
+    id           bigint primary key,
+    user_id      bigint         not null,
+    route_id     bigint         not null,
+    seats        integer        not null,
+    seat_numbers varchar(1000),
+    total_amount numeric(12, 2) not null,
+    booking_date timestamp(6)   not null,
+    status       varchar(20)    not null
+);
+
+-- Booking history, newest first, optionally filtered by status
+create index idx_bookings_user_date on bookings (user_id, booking_date);
+create index idx_bookings_user_status_date on bookings (user_id, status, booking_date);
+-- Seat inventory reload per route
+create index idx_bookings_route_status on bookings (route_id, status);
+
+create table cart_items (
+    id              bigint generated by default as identity primary key,
+    user_id         bigint  not null,
+    route_id        bigint  not null,
+    seats           integer not null,
+    seat_numbers    varchar(1000),
+    created_at      timestamp(6),
+    hold_expires_at timestamp(6)
+);
+
+create index idx_cart_items_user on cart_items (user_id);
+create index idx_cart_items_hold_expiry on cart_items (hold_expires_at);
@@ -0,0 +1,2 @@
+-- Natural key of a timetable entry; bulk imports upsert on it instead of inserting duplicates
+create unique index ux_bus_routes_natural_key on bus_routes (bus_operator, origin, destination, departure_time);
@@ -0,0 +1,39 @@
+-- A trip is one route running on one service day, with its own seat inventory
+create table trips (
+    id              bigint generated by default as identity primary key,
+    route_id        bigint  not null,
+    travel_date     date    not null,
+    total_seats     integer not null,
+    seats_available integer not null,
+    version         bigint
+);
+
+create unique index ux_trips_route_date on trips (route_id, travel_date);
+-- One day's trips in route order: searches and the generator only ever read a single day
+create index idx_trips_date_route on trips (travel_date, route_id);
+
+alter table bookings add column trip_id bigint;
+alter table bookings add column travel_date date;
+alter table cart_items add column trip_id bigint;
+alter table cart_items add column travel_date date;
+
+-- Bookings made before trips existed are attached to a trip on the day they were booked
+insert into trips (route_id, travel_date, total_seats, seats_available, version)
+select distinct b.route_id, cast(b.booking_date as date), r.total_seats, r.total_seats, 0
+from bookings b
+join bus_routes r on r.id = b.route_id;
+
+update bookings b
+set travel_date = cast(b.booking_date as date),
+    trip_id     = (select t.id from trips t where t.route_id = b.route_id and t.travel_date = cast(b.booking_date as date));
+
+update trips t
+set seats_available = t.total_seats - coalesce((select sum(b.seats) from bookings b
+                                                where b.trip_id = t.id and b.status = 'CONFIRMED'), 0);
+
+-- Holds were taken against route-wide inventory and are short-lived anyway
+delete from cart_items;
+
+-- Seat inventory now reloads per trip
+drop index idx_bookings_route_status;
+create index idx_bookings_trip_status on bookings (trip_id, status);
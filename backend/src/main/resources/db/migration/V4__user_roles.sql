@@ -0,0 +1,3 @@
+-- Everyone who signs up is a USER. Operators, who may bulk-import routes, are granted by hand:
+--   update users set role = 'OPERATOR' where email = '...';
+alter table users add column role varchar(20) default 'USER' not null;